@@ -0,0 +1,24 @@
+package timer.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+final class BenchmarkFiles {
+	private BenchmarkFiles() {}
+
+	static File createDirectory(String prefix) throws IOException {
+		return Files.createTempDirectory(prefix).toFile();
+	}
+
+	static void delete(File directory) throws IOException {
+		if (directory != null && directory.exists()) {
+			try (final Stream<Path> paths = Files.walk(directory.toPath())) {
+				paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+			}
+		}
+	}
+}
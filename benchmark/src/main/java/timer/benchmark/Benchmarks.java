@@ -0,0 +1,23 @@
+package timer.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs the benchmarks as org.openjdk.jmh.Main would, adding the GC profiler so that allocation rates are reported
+ * alongside throughput unless another profiler is asked for.
+ */
+public final class Benchmarks {
+	private Benchmarks() {}
+
+	public static void main(String[] args) throws Exception {
+		final List<String> jmhArgs = new ArrayList<>(Arrays.asList(args));
+		if (!jmhArgs.contains("-prof") && !jmhArgs.contains("-h") && !jmhArgs.contains("-l")) {
+			jmhArgs.add("-prof");
+			jmhArgs.add("gc");
+		}
+
+		org.openjdk.jmh.Main.main(jmhArgs.toArray(new String[0]));
+	}
+}
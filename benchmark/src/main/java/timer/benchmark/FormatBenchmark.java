@@ -0,0 +1,48 @@
+package timer.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import timer.lib.Format;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FormatBenchmark {
+	private static final int INTERVALS = 1024;
+
+	private final long[] intervals = new long[INTERVALS];
+
+	@Setup
+	public void setup() {
+		final Random random = new Random(42);
+		for (int i = 0; i < INTERVALS; i++) {
+			// Mostly a working day or less, with the odd total running to hundreds of hours
+			intervals[i] = i % 16 == 0 ? random.nextInt(1000 * 3600) : random.nextInt(10 * 3600);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(INTERVALS)
+	public void formatInterval(Blackhole blackhole) {
+		for (long interval : intervals) {
+			blackhole.consume(Format.formatInterval(interval));
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package timer.benchmark;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import timer.TimerLog;
+import timer.exception.BadLogFileException;
+
+/**
+ * The original {@link TimerLog#parse(String)}, kept here as the baseline to compare the current parser against.
+ */
+public final class LegacyTimerLog {
+	private static final String DATE_FORMAT = "yyyy-MM-dd HH:mm:ss.SSS Z";
+	private static final String NULL = "null";
+	private static final String FIELD_SEPARATOR = ",";
+
+	private LegacyTimerLog() {}
+
+	private static Date parseDate(SimpleDateFormat dateFormat, String date) throws ParseException {
+		if (date == null || date.toLowerCase().equals(NULL) || date.trim().length() == 0) {
+			return null;
+		}
+
+		return dateFormat.parse(date);
+	}
+
+	public static TimerLog parse(String logLine) throws BadLogFileException {
+		if (logLine != null && logLine.trim().length() > 0) {
+			final String[] parts = logLine.split(FIELD_SEPARATOR);
+			if (parts.length != 4) {
+				throw new BadLogFileException();
+			}
+
+			final SimpleDateFormat dateFormat = new SimpleDateFormat(DATE_FORMAT);
+			final Date anchor, start, end;
+			try {
+				anchor = parseDate(dateFormat, parts[0].trim());
+				start = parseDate(dateFormat, parts[1].trim());
+				end = parseDate(dateFormat, parts[2].trim());
+			} catch (ParseException e) {
+				throw new BadLogFileException();
+			}
+
+			final String task = parts[3].trim();
+
+			return new TimerLog(anchor, start, end, task);
+		}
+
+		return null;
+	}
+}
@@ -0,0 +1,101 @@
+package timer.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import timer.Timer;
+import timer.TimerDetail;
+import timer.TimerSummary;
+import timer.TimerTaskReport;
+import timer.exception.BadLogFileException;
+import timer.report.DetailAggregator;
+import timer.report.MergeableReportEngine;
+import timer.report.SummaryAggregator;
+import timer.report.TaskAggregator;
+
+/**
+ * Reports over the whole of a generated log. The scan benchmarks read the entire log every time, while the others go
+ * through the persisted totals as the CLI does, which after the first run only have to check the log is unchanged.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class ReportBenchmark {
+	@Param({ "10000", "1000000", "10000000" })
+	private int lines;
+
+	@Param({ "10", "1000" })
+	private int tasks;
+
+	@Param({ "2", "32" })
+	private int anchorLength;
+
+	private File directory;
+	private Timer timer;
+
+	@Setup
+	public void setup() throws IOException {
+		directory = BenchmarkFiles.createDirectory("timer-report");
+		TimerLogGenerator.generate(directory, lines, tasks, anchorLength);
+		timer = new Timer(directory.getPath(), directory.getPath());
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		BenchmarkFiles.delete(directory);
+	}
+
+	@Benchmark
+	public List<TimerSummary> summaryScan() throws BadLogFileException {
+		final SummaryAggregator aggregator = new SummaryAggregator();
+		timer.report(new MergeableReportEngine(null, null, aggregator));
+		return aggregator.results();
+	}
+
+	@Benchmark
+	public List<TimerDetail> detailScan() throws BadLogFileException {
+		final DetailAggregator aggregator = new DetailAggregator();
+		timer.report(new MergeableReportEngine(null, null, aggregator));
+		return aggregator.results();
+	}
+
+	@Benchmark
+	public List<TimerTaskReport> taskScan() throws BadLogFileException {
+		final TaskAggregator aggregator = new TaskAggregator();
+		timer.report(new MergeableReportEngine(null, null, aggregator));
+		return aggregator.results();
+	}
+
+	@Benchmark
+	public List<TimerSummary> summary() throws BadLogFileException {
+		return timer.summary(null, null);
+	}
+
+	@Benchmark
+	public List<TimerDetail> detail() throws BadLogFileException {
+		return timer.detail(null, null);
+	}
+
+	@Benchmark
+	public List<TimerTaskReport> task() throws BadLogFileException {
+		return timer.task(null, null);
+	}
+}
@@ -0,0 +1,97 @@
+package timer.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import timer.Timer;
+import timer.TimerCheckpoint;
+import timer.TimerStatus;
+import timer.exception.BadLogFileException;
+import timer.exception.BadStatusFileException;
+import timer.exception.BadTaskNameException;
+import timer.exception.NoTaskSpecifiedException;
+import timer.exception.OtherTimerException;
+import timer.exception.TimerAlreadyRunningException;
+import timer.exception.TimerNotRunningException;
+
+/**
+ * Reading the status, and a full pause and resume, with the work done for the current anchor worked out either from
+ * the checkpoint or, once the checkpoint is gone, by reading back through the log.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StateBenchmark {
+	@Param({ "10000", "1000000" })
+	private int lines;
+
+	@Param({ "2", "32" })
+	private int anchorLength;
+
+	private File directory;
+	private String logFilePath;
+
+	private Timer timer;
+
+	@State(Scope.Thread)
+	public static class WithoutCheckpoint {
+		@Setup(Level.Invocation)
+		public void deleteCheckpoint(StateBenchmark state) {
+			new File(TimerCheckpoint.checkpointFilePath(state.logFilePath)).delete();
+		}
+	}
+
+	@Setup
+	public void setup() throws Exception {
+		directory = BenchmarkFiles.createDirectory("timer-state");
+		logFilePath = TimerLogGenerator.generate(directory, lines, 10, anchorLength).getPath();
+		timer = new Timer(directory.getPath(), directory.getPath());
+
+		// Leave the timer paused, ready for the pause and resume cycle
+		timer.resume(null);
+		timer.pause();
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		BenchmarkFiles.delete(directory);
+	}
+
+	@Benchmark
+	public TimerStatus status() throws BadStatusFileException {
+		return timer.status();
+	}
+
+	@Benchmark
+	public void pauseResume() throws BadLogFileException, BadTaskNameException, TimerAlreadyRunningException,
+			NoTaskSpecifiedException, BadStatusFileException, OtherTimerException, TimerNotRunningException {
+		timer.resume(null);
+		timer.pause();
+	}
+
+	@Benchmark
+	public void pauseResumeWithoutCheckpoint(WithoutCheckpoint withoutCheckpoint) throws BadLogFileException,
+			BadTaskNameException, TimerAlreadyRunningException, NoTaskSpecifiedException, BadStatusFileException,
+			OtherTimerException, TimerNotRunningException {
+		timer.resume(null);
+		timer.pause();
+	}
+}
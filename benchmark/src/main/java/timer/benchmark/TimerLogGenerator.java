@@ -0,0 +1,80 @@
+package timer.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+
+import timer.Timer;
+
+/**
+ * Writes a synthetic log in the same format as the timer. The same arguments always give the same log. Every piece of
+ * work is an open line followed by the line closing it, as the timer itself writes them, and each anchor has the
+ * specified number of pieces of work. Anchors are spread evenly over 2000 to 2020, so the log is always in the past.
+ */
+public final class TimerLogGenerator {
+	private static final String DATE_FORMAT = "yyyy-MM-dd HH:mm:ss.SSS Z";
+	private static final long FIRST_ANCHOR = 946684800000l;
+	private static final long LAST_ANCHOR = 1577836800000l;
+	private static final long SEED = 42;
+
+	private TimerLogGenerator() {}
+
+	/**
+	 * Generates a log of about the specified number of lines, rounded up to whole anchors.
+	 */
+	public static File generate(File directory, int lines, int tasks, int anchorLength) throws IOException {
+		final File logFile = new File(directory, Timer.LOG_FILE);
+		final Random random = new Random(SEED);
+
+		final SimpleDateFormat dateFormat = new SimpleDateFormat(DATE_FORMAT);
+		dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+
+		final long anchors = Math.max(1, (lines + 2l * anchorLength - 1) / (2l * anchorLength));
+		final long spacing = (LAST_ANCHOR - FIRST_ANCHOR) / anchors;
+
+		// Pieces of work take a share of the time up to the next anchor
+		final long maxLength = Math.max(anchorLength, spacing / (2 * anchorLength));
+
+		try (final Writer writer = new BufferedWriter(
+				new OutputStreamWriter(new FileOutputStream(logFile), StandardCharsets.UTF_8), 1 << 16)) {
+			for (long i = 0; i < anchors; i++) {
+				final long anchor = FIRST_ANCHOR + i * spacing;
+				final String formattedAnchor = dateFormat.format(new Date(anchor));
+
+				long start = anchor;
+				for (int j = 0; j < anchorLength; j++) {
+					final long end = start + 1 + (long) (random.nextDouble() * maxLength);
+					final String formattedStart = dateFormat.format(new Date(start));
+					final String task = "TASK-" + random.nextInt(tasks);
+
+					writer.write(formattedAnchor + "," + formattedStart + ",null," + task + "\n");
+					writer.write(formattedAnchor + "," + formattedStart + "," + dateFormat.format(new Date(end)) + ","
+							+ task + "\n");
+
+					start = end + (long) (random.nextDouble() * maxLength);
+				}
+			}
+		}
+
+		return logFile;
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 4) {
+			System.err.println("usage: TimerLogGenerator <directory> <lines> <tasks> <anchor length>");
+			System.exit(1);
+		}
+
+		final File directory = new File(args[0]);
+		directory.mkdirs();
+		generate(directory, Integer.parseInt(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+	}
+}
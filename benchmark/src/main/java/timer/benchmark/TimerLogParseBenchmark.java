@@ -0,0 +1,83 @@
+package timer.benchmark;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import timer.TimerLog;
+import timer.TimerLogRecord;
+import timer.exception.BadLogFileException;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TimerLogParseBenchmark {
+	private static final int LINES = 10000;
+	private static final String DATE_FORMAT = "yyyy-MM-dd HH:mm:ss.SSS Z";
+
+	private final String[] lines = new String[LINES];
+	private final TimerLogRecord record = new TimerLogRecord();
+
+	@Setup
+	public void setup() {
+		final Random random = new Random(42);
+		final SimpleDateFormat dateFormat = new SimpleDateFormat(DATE_FORMAT);
+
+		long anchor = 1500000000000l;
+		for (int i = 0; i < LINES; i++) {
+			final long start = anchor + random.nextInt(3600000);
+			final long end = start + random.nextInt(7200000);
+			final String task = "TASK-" + random.nextInt(100);
+			lines[i] = String.format("%s,%s,%s,%s", dateFormat.format(new Date(anchor)),
+					dateFormat.format(new Date(start)), i % 2 == 0 ? "null" : dateFormat.format(new Date(end)),
+					task);
+			if (i % 8 == 7) {
+				anchor = end + random.nextInt(86400000);
+			}
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(LINES)
+	public void legacyParse(Blackhole blackhole) throws BadLogFileException {
+		for (String line : lines) {
+			blackhole.consume(LegacyTimerLog.parse(line));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(LINES)
+	public void timerLogParse(Blackhole blackhole) throws BadLogFileException {
+		for (String line : lines) {
+			blackhole.consume(TimerLog.parse(line));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(LINES)
+	public void recordParse(Blackhole blackhole) throws BadLogFileException {
+		for (String line : lines) {
+			record.parse(line);
+			blackhole.consume(record.getAnchor());
+			blackhole.consume(record.getStart());
+			blackhole.consume(record.getEnd());
+		}
+	}
+}
@@ -0,0 +1,49 @@
+#!/bin/bash
+
+# Sends the command to a server started with "timer -e" if one is running, otherwise runs it directly. It's only
+# run directly if the server can't be reached, never once the command has been sent to it
+
+TIMER_JAR="${TIMER_JAR:-$HOME/bin/timer.jar}"
+
+# Watching never finishes, so it would hold up the server for good, and an import from standard input needs the
+# client's standard input, which isn't sent to the server
+previous=""
+for arg in "$@"; do
+    case "$arg" in
+        -w|--watch|--import=-) exec java -jar "$TIMER_JAR" "$@" ;;
+        -) case "$previous" in
+            -m|--import) exec java -jar "$TIMER_JAR" "$@" ;;
+        esac ;;
+    esac
+    previous="$arg"
+done
+
+if [ -f ~/.timer/server ] && read -r port token < ~/.timer/server && { exec 3<>"/dev/tcp/127.0.0.1/$port"; } 2>/dev/null; then
+    # A server that goes away mid request should be reported below rather than kill the script
+    trap '' PIPE
+    {
+        printf '%s\n%s\n%s\n' "$token" "$PWD" "$#"
+        for arg in "$@"; do
+            printf '%s\n' "$arg"
+        done
+    } >&3 2>/dev/null
+
+    status=""
+    while IFS= read -r line <&3; do
+        case "$line" in
+            "1 "*) printf '%s\n' "${line:2}" ;;
+            "2 "*) printf '%s\n' "${line:2}" >&2 ;;
+            "exit "*) status="${line:5}" ;;
+        esac
+    done
+    exec 3<&-
+
+    # The command may have run even without an answer, so running it again here could repeat it
+    if [ "$status" = "" ]; then
+        echo "The timer server didn't answer, so the command may or may not have run" >&2
+        exit 1
+    fi
+    exit $status
+fi
+
+exec java -jar "$TIMER_JAR" "$@"
@@ -0,0 +1,54 @@
+#!/bin/bash
+
+# Reports the average cold start wall time of each command, with and without a class data sharing archive.
+# Usage: timer-startup.sh <jar> [archive] [runs]
+# Run it against an older jar as well to compare before and after.
+
+JAR="$1"
+ARCHIVE="$2"
+RUNS="${3:-10}"
+JAVA="${TIMER_JAVA:-java}"
+
+if [ -z "$JAR" ]; then
+    echo "usage: $(basename $0) <jar> [archive] [runs]" >&2
+    exit 1
+fi
+
+SCRATCH="$(mktemp -d)"
+trap 'rm -rf "$SCRATCH"' EXIT
+mkdir -p "$SCRATCH/project"
+
+timer() {
+    (cd "$SCRATCH/project" && "$JAVA" "$@" -Duser.home="$SCRATCH" -jar "$JAR" "${COMMAND[@]}" > /dev/null 2>&1)
+}
+
+# Average milliseconds over the runs
+measure() {
+    local total=0
+    for ((i = 0; i < RUNS; i++)); do
+        local start=$(date +%s%N)
+        timer "$@"
+        total=$((total + $(date +%s%N) - start))
+    done
+
+    echo $((total / RUNS / 1000000))
+}
+
+# Give the reports something to read
+for COMMAND in "-g startup" "-p" "-i" "-s"; do
+    COMMAND=($COMMAND)
+    timer
+done
+
+printf "%-10s %10s" "command" "default"
+[ -n "$ARCHIVE" ] && printf " %10s" "archive"
+printf "\n"
+
+for COMMAND in "-c" "-t" "-g startup" "-p" "-i" "-s" "-r" "-d" "-a"; do
+    label="$COMMAND"
+    COMMAND=($COMMAND)
+
+    printf "%-10s %8sms" "$label" "$(measure)"
+    [ -n "$ARCHIVE" ] && printf " %8sms" "$(measure -XX:SharedArchiveFile="$ARCHIVE" -Xlog:cds=off)"
+    printf "\n"
+done
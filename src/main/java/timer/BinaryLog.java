@@ -0,0 +1,443 @@
+package timer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import timer.exception.BadLogFileException;
+import timer.report.ReportEngine;
+
+/**
+ * Compact form of the log. After an 8 byte header, every entry is a fixed width record holding the anchor, start and
+ * end as epoch milliseconds and the task as the offset of its entry in a separate task dictionary. The dictionary is
+ * a sequence of length prefixed UTF-8 strings holding each task once, so any single task can be read without loading
+ * the rest of it.
+ */
+public final class BinaryLog {
+	public static final String TASKS_FILE = ".timer-tasks";
+	public static final String BACKUP_SUFFIX = ".bak";
+
+	private static final byte[] MAGIC = "TIMERBIN".getBytes(StandardCharsets.US_ASCII);
+	private static final int HEADER_SIZE = MAGIC.length;
+	private static final int RECORD_SIZE = 3 * 8 + 4;
+	private static final int NO_TASK = -1;
+	private static final String NULL = "null";
+
+	private BinaryLog() {}
+
+	private static String tasksFilePath(String logFilePath) {
+		return new File(new File(logFilePath).getParentFile(), TASKS_FILE).getPath();
+	}
+
+	private static long toMillis(Date date) {
+		return date != null ? date.getTime() : TimerLogRecord.NONE;
+	}
+
+	private static Date toDate(long millis) {
+		return millis != TimerLogRecord.NONE ? new Date(millis) : null;
+	}
+
+	private static long count(RandomAccessFile file) throws IOException {
+		return (file.length() - HEADER_SIZE) / RECORD_SIZE;
+	}
+
+	private static long position(long record) {
+		return HEADER_SIZE + record * RECORD_SIZE;
+	}
+
+	private static String readTask(RandomAccessFile tasks, int offset) throws IOException {
+		if (offset == NO_TASK) {
+			return NULL;
+		}
+
+		if (offset < 0 || offset > tasks.length() - 4) {
+			throw new IOException();
+		}
+
+		tasks.seek(offset);
+		final int length = tasks.readInt();
+		if (length < 0 || length > tasks.length() - offset - 4) {
+			throw new IOException();
+		}
+
+		final byte[] bytes = new byte[length];
+		tasks.readFully(bytes);
+
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static String readTask(String logFilePath, int offset) throws IOException {
+		try (final RandomAccessFile tasks = new RandomAccessFile(tasksFilePath(logFilePath), "r")) {
+			return readTask(tasks, offset);
+		}
+	}
+
+	// The offset of each task in the dictionary by name, which dictionaries written before tasks were only added once
+	// may have more than one of
+	private static Map<String, Integer> readTaskOffsets(String logFilePath) throws IOException {
+		final Map<String, Integer> result = new HashMap<>();
+		final File tasksFile = new File(tasksFilePath(logFilePath));
+		if (tasksFile.exists()) {
+			try (final DataInputStream input =
+					new DataInputStream(new BufferedInputStream(new FileInputStream(tasksFile)))) {
+				int offset = 0;
+				while (true) {
+					final int length;
+					try {
+						length = input.readInt();
+					} catch (EOFException e) {
+						break;
+					}
+
+					final byte[] bytes = new byte[length];
+					input.readFully(bytes);
+					result.putIfAbsent(new String(bytes, StandardCharsets.UTF_8), offset);
+					offset += 4 + length;
+				}
+			}
+		}
+
+		return result;
+	}
+
+	private static void writeRecord(DataOutputStream output, long anchor, long start, long end, int task)
+			throws IOException {
+		output.writeLong(anchor);
+		output.writeLong(start);
+		output.writeLong(end);
+		output.writeInt(task);
+	}
+
+	public static boolean isBinary(String logFilePath) {
+		final File logFile = new File(logFilePath);
+		if (logFile.length() < HEADER_SIZE) {
+			return false;
+		}
+
+		try (final FileInputStream input = new FileInputStream(logFile)) {
+			final byte[] header = new byte[HEADER_SIZE];
+			return input.read(header) == HEADER_SIZE && Arrays.equals(header, MAGIC);
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Converts a text log to the binary form in place, keeping the original next to it with a .bak suffix.
+	 */
+	public static void convert(String logFilePath) throws BadLogFileException {
+		final File logFile = new File(logFilePath);
+		if (isBinary(logFilePath)) {
+			return;
+		}
+
+		final File binaryFile = new File(logFilePath + ".tmp");
+		final File tasksFile = new File(tasksFilePath(logFilePath));
+
+		final Map<String, Integer> tasks = new HashMap<>();
+		try (final DataOutputStream output =
+				new DataOutputStream(new BufferedOutputStream(new FileOutputStream(binaryFile)));
+				final DataOutputStream tasksOutput =
+						new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tasksFile)))) {
+			output.write(MAGIC);
+
+			if (logFile.exists()) {
+				try (final BufferedReader reader = new BufferedReader(
+						new InputStreamReader(new FileInputStream(logFile), StandardCharsets.UTF_8))) {
+					final TimerLogRecord record = new TimerLogRecord();
+					String line;
+					while ((line = reader.readLine()) != null) {
+						if (record.parse(line)) {
+							Integer task = tasks.get(record.getTask());
+							if (task == null) {
+								task = tasksOutput.size();
+								final byte[] bytes = record.getTask().getBytes(StandardCharsets.UTF_8);
+								tasksOutput.writeInt(bytes.length);
+								tasksOutput.write(bytes);
+								tasks.put(record.getTask(), task);
+							}
+
+							writeRecord(output, record.getAnchor(), record.getStart(), record.getEnd(), task);
+						}
+					}
+				}
+			}
+		} catch (IOException e) {
+			binaryFile.delete();
+			throw new BadLogFileException();
+		}
+
+		try {
+			if (logFile.exists()) {
+				Files.move(logFile.toPath(), new File(logFilePath + BACKUP_SUFFIX).toPath(),
+						StandardCopyOption.REPLACE_EXISTING);
+			}
+
+			Files.move(binaryFile.toPath(), logFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			throw new BadLogFileException();
+		}
+
+		new File(TimerIndex.indexFilePath(logFilePath)).delete();
+		new File(TimerTaskIndex.indexFilePath(logFilePath)).delete();
+	}
+
+	public static TimerLog latest(String logFilePath) throws BadLogFileException {
+		try (final RandomAccessFile file = new RandomAccessFile(logFilePath, "r")) {
+			final long count = count(file);
+			if (count == 0) {
+				return null;
+			}
+
+			file.seek(position(count - 1));
+			final long anchor = file.readLong(), start = file.readLong(), end = file.readLong();
+			final String task = readTask(logFilePath, file.readInt());
+
+			return new TimerLog(toDate(anchor), toDate(start), toDate(end), task);
+		} catch (IOException e) {
+			throw new BadLogFileException();
+		}
+	}
+
+	/**
+	 * Appends the entries with a single write through the channel, which the caller should hold a lock on, returning
+	 * the offsets they were written at. Tasks already in the dictionary are looked up rather than added again, and any
+	 * new ones are added with a single write before the entries that refer to them.
+	 */
+	public static long[] append(FileChannel channel, String logFilePath, List<TimerLog> timerLogs)
+			throws BadLogFileException {
+		try {
+			final long count = (channel.size() - HEADER_SIZE) / RECORD_SIZE;
+
+			final File tasksFile = new File(tasksFilePath(logFilePath));
+			final Map<String, Integer> tasks = readTaskOffsets(logFilePath);
+			final long tasksSize = tasksFile.length();
+			final ByteArrayOutputStream newTasks = new ByteArrayOutputStream();
+			final DataOutputStream tasksOutput = new DataOutputStream(newTasks);
+
+			final ByteArrayOutputStream bytes = new ByteArrayOutputStream(RECORD_SIZE * timerLogs.size());
+			final DataOutputStream output = new DataOutputStream(bytes);
+			for (TimerLog timerLog : timerLogs) {
+				Integer task = NO_TASK;
+				if (timerLog.getTask() != null) {
+					task = tasks.get(timerLog.getTask());
+				}
+
+				if (task == null) {
+					if (tasksSize + newTasks.size() > Integer.MAX_VALUE) {
+						throw new IOException();
+					}
+
+					task = (int) (tasksSize + newTasks.size());
+					final byte[] name = timerLog.getTask().getBytes(StandardCharsets.UTF_8);
+					tasksOutput.writeInt(name.length);
+					tasksOutput.write(name);
+					tasks.put(timerLog.getTask(), task);
+				}
+
+				writeRecord(output, toMillis(timerLog.getAnchor()), toMillis(timerLog.getStart()),
+						toMillis(timerLog.getEnd()), task);
+			}
+
+			if (newTasks.size() > 0) {
+				try (final FileOutputStream tasksOutputFile = new FileOutputStream(tasksFile, true)) {
+					newTasks.writeTo(tasksOutputFile);
+				}
+			}
+
+			final ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+			for (long position = position(count); buffer.hasRemaining();) {
+				position += channel.write(buffer, position);
+			}
+
+			final long[] result = new long[timerLogs.size()];
+			for (int i = 0; i < result.length; i++) {
+				result[i] = position(count + i);
+			}
+
+			return result;
+		} catch (IOException e) {
+			throw new BadLogFileException();
+		}
+	}
+
+	/**
+	 * Total milliseconds of finished work for the anchor, reading backwards from the end of the log.
+	 */
+	public static long workDone(String logFilePath, long anchor) throws BadLogFileException {
+		long result = 0;
+		try (final RandomAccessFile file = new RandomAccessFile(logFilePath, "r")) {
+			for (long record = count(file) - 1; record >= 0; record--) {
+				file.seek(position(record));
+				final long recordAnchor = file.readLong(), start = file.readLong(), end = file.readLong();
+				if (recordAnchor != anchor) {
+					break;
+				}
+
+				if (start == TimerLogRecord.NONE) {
+					throw new BadLogFileException();
+				}
+				if (end != TimerLogRecord.NONE) {
+					result += end - start;
+				}
+			}
+		} catch (IOException e) {
+			throw new BadLogFileException();
+		}
+
+		return result;
+	}
+
+	// Records are in anchor order, so the first one in range can be found with a binary search
+	private static long firstRecord(RandomAccessFile file, long anchor) throws IOException {
+		long low = 0, high = count(file);
+		while (low < high) {
+			final long middle = (low + high) >>> 1;
+			file.seek(position(middle));
+			if (file.readLong() < anchor) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+
+		return low;
+	}
+
+	/**
+	 * Reads the records from the start of the engine's range onwards, returning the number of bytes read.
+	 */
+	public static long scan(String logFilePath, ReportEngine engine) throws BadLogFileException {
+		final long first;
+		try (final RandomAccessFile file = new RandomAccessFile(logFilePath, "r")) {
+			first = engine.getStart() != null ? firstRecord(file, engine.getStart().getTime()) : 0;
+		} catch (IOException e) {
+			throw new BadLogFileException();
+		}
+
+		return scan(logFilePath, position(first), engine) - position(first);
+	}
+
+	/**
+	 * Reads the records from the offset onwards, returning the offset just past the last complete record read.
+	 */
+	public static long scan(String logFilePath, long offset, ReportEngine engine) throws BadLogFileException {
+		try (final Reader reader = Reader.open(logFilePath, offset)) {
+			final TimerLogRecord record = new TimerLogRecord();
+			long position = reader.getPosition();
+			while (reader.read(record) && engine.accept(record)) {
+				position = reader.getPosition();
+			}
+
+			return position;
+		} catch (IOException e) {
+			throw new BadLogFileException();
+		}
+	}
+
+	/**
+	 * Reads records one at a time while keeping track of the offset reached, as {@link timer.lib.LineReader} does for
+	 * the text form. A final record that hasn't been completely written yet isn't returned. Tasks are only read from
+	 * the dictionary as they come up.
+	 */
+	public static final class Reader implements Closeable {
+		private final DataInputStream input;
+		private final String tasksFilePath;
+		private final Map<Integer, String> tasks = new HashMap<>();
+		private RandomAccessFile tasksFile;
+		private final byte[] bytes = new byte[RECORD_SIZE];
+		private final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		private long position;
+
+		/**
+		 * Reads records from the stream, taking their tasks from the dictionary of the log.
+		 */
+		public Reader(InputStream input, String logFilePath, long position) throws IOException {
+			this.input = new DataInputStream(new BufferedInputStream(input, 1 << 16));
+			this.tasksFilePath = tasksFilePath(logFilePath);
+			this.position = position;
+		}
+
+		public static Reader open(String logFilePath, long offset) throws IOException {
+			final long position = Math.max(offset, HEADER_SIZE);
+			final FileInputStream input = new FileInputStream(logFilePath);
+			try {
+				input.getChannel().position(position);
+				return new Reader(input, logFilePath, position);
+			} catch (IOException e) {
+				input.close();
+				throw e;
+			}
+		}
+
+		/**
+		 * The offset just past the end of the last record read.
+		 */
+		public long getPosition() {
+			return position;
+		}
+
+		public boolean read(TimerLogRecord record) throws IOException, BadLogFileException {
+			try {
+				input.readFully(bytes);
+			} catch (EOFException e) {
+				return false;
+			}
+
+			final long anchor = buffer.getLong(0), start = buffer.getLong(8), end = buffer.getLong(16);
+			record.set(anchor, start, end, task(buffer.getInt(24)));
+			position += RECORD_SIZE;
+			return true;
+		}
+
+		private String task(int offset) throws BadLogFileException {
+			String result = tasks.get(offset);
+			if (result == null) {
+				try {
+					if (tasksFile == null) {
+						tasksFile = new RandomAccessFile(tasksFilePath, "r");
+					}
+
+					result = readTask(tasksFile, offset);
+				} catch (IOException e) {
+					// A task that isn't in the dictionary
+					throw new BadLogFileException();
+				}
+
+				tasks.put(offset, result);
+			}
+
+			return result;
+		}
+
+		@Override
+		public void close() throws IOException {
+			input.close();
+			if (tasksFile != null) {
+				tasksFile.close();
+			}
+		}
+	}
+}
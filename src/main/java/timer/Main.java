@@ -1,11 +1,29 @@
 package timer;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -17,6 +35,7 @@ import org.apache.commons.cli.PosixParser;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
+import timer.exception.BadEventException;
 import timer.exception.BadLogFileException;
 import timer.exception.BadStatusFileException;
 import timer.exception.BadTaskNameException;
@@ -25,17 +44,29 @@ import timer.exception.OtherTimerException;
 import timer.exception.TimerAlreadyRunningException;
 import timer.exception.TimerNotRunningException;
 import timer.lib.DateRange;
+import timer.lib.Exported;
+import timer.lib.Exporter;
+import timer.lib.Format;
 import timer.lib.Formatted;
+import timer.lib.Metrics;
 import timer.lib.MutuallyExclusiveOptionChecker;
 import timer.lib.OptionFactory;
+import timer.report.Aggregator;
+import timer.report.DetailAggregator;
+import timer.report.Dimension;
+import timer.report.ReportEngine;
+import timer.report.SummaryAggregator;
+import timer.report.TaskAggregator;
+import timer.report.TopTaskAggregator;
 
-@AllArgsConstructor
 public final class Main {
 	private static final String HOME_DIRECTORY = System.getProperty("user.home");
 	private static final String CURRENT_DIRECTORY = Paths.get(".").toAbsolutePath().normalize().toString();
 
 	private static final String DATE_FORMAT = "yyyy-MM-dd";
 	private static final String MONTH_FORMAT = "MMMM";
+	private static final String ESTIMATE_FORMAT =
+			"There are too many tasks to total exactly, so these totals may each be up to %s too high";
 
 	@AllArgsConstructor(access = AccessLevel.PRIVATE)
 	private enum Command {
@@ -49,30 +80,78 @@ public final class Main {
 		Detail(OptionFactory.create("d", "detail", 2, true,
 				"Generates a detailed report by day for a date range")),
 		Task(OptionFactory.create("a", "task", 2, true, "Generates a by task report for the date range")),
+		Combined(OptionFactory.create("b", "combined", 2, true,
+				"Generates the summary, detailed and by task reports for a date range from one read of the log")),
+		Projects(OptionFactory.create("o", "projects", 2, true,
+				"Generates a total by project across all registered projects for a date range")),
+		Sessions(OptionFactory.create("u", "sessions", 2, true,
+				"Generates the distribution of interval lengths and of totals by anchor for a date range")),
+		Query(OptionFactory.create("q", "query", 3, true,
+				"Generates the time spent grouped by a comma separated list of day, week or month, task and project "
+						+ "(across all registered projects) for a date range")),
 		Status(new Option("t", "status", false, "Status of the timer")),
-		Directory(new Option("y", "directory", true, "Project directory"));
+		Convert(new Option("v", "convert", false, "Converts the log to the compact binary format")),
+		Segment(new Option("n", "segment", false,
+				"Splits the log into monthly segments, which it's then rolled into as it grows")),
+		Server(new Option("e", "server", false,
+				"Runs a resident server that scripts/timer-client.sh can send commands to")),
+		Import(new Option("m", "import", true,
+				"Imports start, pause, stop and resume events from a file, or from standard input for -")),
+		Watch(OptionFactory.create("w", "watch", 1, true,
+				"Prints the status as it changes, updating the elapsed time every second or the given number of seconds")),
+		Directory(new Option("y", "directory", true, "Project directory")),
+		Parallel(new Option("l", "parallel", false, "Reads the log in parallel when generating reports")),
+		Top(new Option("k", "top", true,
+				"Limits by task reports to the specified number of tasks with the most time spent, most first")),
+		Profile(new Option("f", "profile", false,
+				"Writes the time taken, memory allocated and data read by each phase of the command to standard error as JSON")),
+		Export(new Option("x", "export", true,
+				"Writes reports and status as json (one object per line) or csv for other programs to read")),
+		Tasks(new Option("j", "tasks", true,
+				"Only reports on tasks containing the specified text, or starting with it if it ends with *, ignoring case"));
 
 		@Getter
 		private Option option;
 	}
 
 	private static final String CMDLINE_SYNTAX =
-			"timer [-y <directory>] [-g <task> | -s | -p | -i <task> | -c | -r <start> <end> | -t | -d <start> <end>] | -a <start> <end>";
-	private static final Options CMDLINE_OPTIONS =
-			new Options().addOption(Command.Go.getOption()).addOption(Command.Stop.getOption())
-					.addOption(Command.Pause.getOption()).addOption(Command.Continue.getOption())
-					.addOption(Command.Check.getOption()).addOption(Command.Summary.getOption())
-					.addOption(Command.Detail.getOption()).addOption(Command.Task.getOption())
-					.addOption(Command.Status.getOption()).addOption(Command.Directory.getOption());
+			"timer [-y <directory>] [-l] [-k <count>] [-f] [-x json|csv] [-j <text>] [-g <task> | -s | -p | -i <task> | -c | -r <start> <end> | -t | -d <start> <end>] | -a <start> <end> | -b <start> <end> | -o <start> <end> | -u <start> <end> | -q <groups> <start> <end> | -v | -n | -e | -m <file> | -w [<seconds>]";
+
+	// Only built when the command line needs parsing, which check and status usually don't
+	private static final class CommandLineOptions {
+		private static final Options CMDLINE_OPTIONS =
+				new Options().addOption(Command.Go.getOption()).addOption(Command.Stop.getOption())
+						.addOption(Command.Pause.getOption()).addOption(Command.Continue.getOption())
+						.addOption(Command.Check.getOption()).addOption(Command.Summary.getOption())
+						.addOption(Command.Detail.getOption()).addOption(Command.Task.getOption())
+						.addOption(Command.Combined.getOption()).addOption(Command.Projects.getOption())
+						.addOption(Command.Sessions.getOption()).addOption(Command.Query.getOption())
+						.addOption(Command.Convert.getOption()).addOption(Command.Segment.getOption())
+						.addOption(Command.Server.getOption())
+						.addOption(Command.Import.getOption()).addOption(Command.Watch.getOption())
+						.addOption(Command.Status.getOption()).addOption(Command.Directory.getOption())
+						.addOption(Command.Parallel.getOption()).addOption(Command.Top.getOption())
+						.addOption(Command.Profile.getOption()).addOption(Command.Export.getOption())
+						.addOption(Command.Tasks.getOption());
+	}
+
+	private static final class Exit extends RuntimeException {
+		private static final long serialVersionUID = -5009526329375513127L;
+
+		private Exit(String msg) {
+			super(msg);
+		}
+	}
 
 	private static void error(String msg) {
-		System.err.println(msg);
-		System.exit(1);
+		throw new Exit(msg);
 	}
 
-	private static void printHelp() {
-		new HelpFormatter().printHelp(115, CMDLINE_SYNTAX, null, CMDLINE_OPTIONS, null, false);
-		System.exit(0);
+	private static void printHelp(PrintStream out) {
+		final PrintWriter writer = new PrintWriter(out);
+		new HelpFormatter().printHelp(writer, 115, CMDLINE_SYNTAX, null, CommandLineOptions.CMDLINE_OPTIONS,
+				HelpFormatter.DEFAULT_LEFT_PAD, HelpFormatter.DEFAULT_DESC_PAD, null, false);
+		writer.flush();
 	}
 
 	private static String[] getArg(CommandLine commandLine, Option option) {
@@ -80,7 +159,7 @@ public final class Main {
 	}
 
 	private static String[] getArgs(CommandLine commandLine, Option option, int expectedCount) {
-		final String[] commandArgs = commandLine.getOptions()[0].getValues();
+		final String[] commandArgs = commandLine.getOptionValues(option.getOpt());
 		if (commandArgs != null && commandArgs.length > expectedCount) {
 			return null;
 		}
@@ -92,7 +171,7 @@ public final class Main {
 		final CommandLineParser argsParser = new PosixParser();
 		final CommandLine commandLine;
 		try {
-			commandLine = argsParser.parse(CMDLINE_OPTIONS, args);
+			commandLine = argsParser.parse(CommandLineOptions.CMDLINE_OPTIONS, args);
 		} catch (org.apache.commons.cli.ParseException e) {
 			return null;
 		}
@@ -100,12 +179,46 @@ public final class Main {
 		final Option option = new MutuallyExclusiveOptionChecker().check(commandLine, Command.Go.getOption(),
 				Command.Stop.getOption(), Command.Pause.getOption(), Command.Continue.getOption(),
 				Command.Check.getOption(), Command.Summary.getOption(), Command.Detail.getOption(),
-				Command.Task.getOption(), Command.Status.getOption());
+				Command.Task.getOption(), Command.Combined.getOption(), Command.Projects.getOption(),
+				Command.Status.getOption(), Command.Sessions.getOption(), Command.Query.getOption(),
+				Command.Convert.getOption(), Command.Segment.getOption(), Command.Server.getOption(),
+				Command.Import.getOption(), Command.Watch.getOption());
 		if (option == null) {
 			return null;
 		}
 
-		final String directory = commandLine.getOptionValue("y");
+		final Main main = create(commandLine, option, commandLine.getOptionValue("y"));
+		if (main != null) {
+			main.parallel = commandLine.hasOption(Command.Parallel.getOption().getOpt());
+			if (commandLine.hasOption(Command.Profile.getOption().getOpt())) {
+				main.metrics = Metrics.create();
+			}
+
+			main.tasks = commandLine.getOptionValue(Command.Tasks.getOption().getOpt());
+
+			main.export = commandLine.getOptionValue(Command.Export.getOption().getOpt());
+			if (main.export != null && !main.export.equals("json") && !main.export.equals("csv")) {
+				return null;
+			}
+
+			final String top = commandLine.getOptionValue(Command.Top.getOption().getOpt());
+			if (top != null) {
+				try {
+					main.top = Integer.parseInt(top);
+				} catch (NumberFormatException e) {
+					return null;
+				}
+
+				if (main.top < 1) {
+					return null;
+				}
+			}
+		}
+
+		return main;
+	}
+
+	private static Main create(CommandLine commandLine, Option option, String directory) {
 		if (option != null) {
 			switch (option.getOpt()) {
 			case "g":
@@ -124,8 +237,26 @@ public final class Main {
 				return new Main(Command.Detail, getArgs(commandLine, option, 2), directory);
 			case "a":
 				return new Main(Command.Task, getArgs(commandLine, option, 2), directory);
+			case "b":
+				return new Main(Command.Combined, getArgs(commandLine, option, 2), directory);
+			case "o":
+				return new Main(Command.Projects, getArgs(commandLine, option, 2), directory);
+			case "u":
+				return new Main(Command.Sessions, getArgs(commandLine, option, 2), directory);
+			case "q":
+				return new Main(Command.Query, getArgs(commandLine, option, 3), directory);
 			case "t":
 				return new Main(Command.Status, directory);
+			case "v":
+				return new Main(Command.Convert, directory);
+			case "n":
+				return new Main(Command.Segment, directory);
+			case "e":
+				return new Main(Command.Server, directory);
+			case "m":
+				return new Main(Command.Import, getArg(commandLine, option), directory);
+			case "w":
+				return new Main(Command.Watch, getArg(commandLine, option), directory);
 			}
 		}
 
@@ -141,17 +272,45 @@ public final class Main {
 	@Getter
 	private final String directory;
 
-	private Main(Command command, String directory) {
+	@Getter
+	private boolean parallel;
+
+	// The number of tasks by task reports are limited to, or 0 for all of them
+	@Getter
+	private int top;
+
+	@Getter
+	private Metrics metrics = Metrics.DISABLED;
+
+	// The format reports are exported in, or null to print them
+	@Getter
+	private String export;
+
+	private Exporter exporter;
+
+	// Text that tasks have to contain, or start with when it ends with *, to be reported on, or null for all of them
+	@Getter
+	private String tasks;
+
+	private Main(Command command, String[] parameters, String directory) {
 		this.command = command;
-		this.parameters = null;
+		this.parameters = parameters;
 		this.directory = directory;
 	}
 
+	private Main(Command command, String directory) {
+		this(command, null, directory);
+	}
+
 	private String getParameter() {
 		return parameters != null && parameters.length > 0 ? parameters[0] : null;
 	}
 
 	private DateRange getDateRangeParameter() {
+		return getDateRangeParameter(parameters);
+	}
+
+	private static DateRange getDateRangeParameter(String[] parameters) {
 		Date start = null, end = null;
 		if (parameters != null && parameters.length > 0) {
 			// Check for a month shortcut
@@ -202,28 +361,233 @@ public final class Main {
 		return new DateRange(start, end);
 	}
 
-	private static void print(Collection<? extends Formatted> items) {
+	private List<Dimension> getDimensionsParameter() {
+		final String names = getParameter();
+		if (names == null) {
+			error("Specify what to group by, as a comma separated list of day, week or month, task and project");
+		}
+
+		final List<Dimension> result = new ArrayList<>();
+		for (String name : names.split(",")) {
+			try {
+				final Dimension dimension = Dimension.valueOf(name.trim().toUpperCase(Locale.ROOT));
+				if (!result.contains(dimension)) {
+					result.add(dimension);
+				}
+			} catch (IllegalArgumentException e) {
+				error(String.format("Can't group by %s, only by day, week, month, task and project", name.trim()));
+			}
+		}
+
+		int periods = 0;
+		for (Dimension dimension : result) {
+			if (dimension.isPeriod()) {
+				periods++;
+			}
+		}
+		if (periods > 1) {
+			error("Only one of day, week and month can be grouped by");
+		}
+
+		return result;
+	}
+
+	private Predicate<String> getTaskFilter() {
+		if (tasks == null) {
+			return null;
+		}
+
+		if (tasks.endsWith("*")) {
+			final String prefix = tasks.substring(0, tasks.length() - 1).toLowerCase(Locale.ROOT);
+			return task -> task.toLowerCase(Locale.ROOT).startsWith(prefix);
+		}
+
+		final String text = tasks.toLowerCase(Locale.ROOT);
+		return task -> task.toLowerCase(Locale.ROOT).contains(text);
+	}
+
+	private static void print(PrintStream out, Collection<? extends Formatted> items) {
 		for (Formatted item : items) {
-			System.out.println(item.format());
+			out.println(item.format());
 		}
 	}
 
-	private static void print(Formatted item) {
+	private static void print(PrintStream out, Formatted item) {
 		if (item != null) {
-			System.out.println(item.format());
+			out.println(item.format());
 		}
 	}
 
-	public static void main(String[] args) {
+	private <T extends Formatted & Exported> void render(PrintStream out, Collection<T> items) {
+		final Metrics.Phase phase = metrics.start("render");
+		try {
+			if (exporter != null) {
+				for (T item : items) {
+					item.export(exporter);
+				}
+			} else {
+				print(out, items);
+			}
+		} finally {
+			phase.close();
+		}
+	}
+
+	private <T extends Formatted & Exported> void render(PrintStream out, T item) {
+		final Metrics.Phase phase = metrics.start("render");
+		try {
+			if (exporter != null) {
+				if (item != null) {
+					item.export(exporter);
+				}
+			} else {
+				print(out, item);
+			}
+		} finally {
+			phase.close();
+		}
+	}
+
+	private void renderTasks(PrintStream out, Aggregator<TimerTaskReport> task) {
+		if (exporter == null) {
+			final Metrics.Phase phase = metrics.start("render");
+			try {
+				printTasks(out, task);
+			} finally {
+				phase.close();
+			}
+			return;
+		}
+
+		final List<TimerTaskReport> results = task.results();
+		render(out, results);
+		if (task instanceof TopTaskAggregator && ((TopTaskAggregator) task).getError() > 0) {
+			// How far the totals may be over, when there were too many tasks to total exactly
+			exporter.row("estimate");
+			exporter.field("seconds", ((TopTaskAggregator) task).getError());
+			exporter.end();
+		}
+	}
+
+	// Sections of a combined report are only separated when printed
+	private void separate(PrintStream out) {
+		if (exporter == null) {
+			out.println();
+		}
+	}
+
+	private Aggregator<TimerTaskReport> taskAggregator() {
+		return top > 0 ? new TopTaskAggregator(top) : new TaskAggregator();
+	}
+
+	private static void printTasks(PrintStream out, Aggregator<TimerTaskReport> task) {
+		print(out, task.results());
+		if (task instanceof TopTaskAggregator && ((TopTaskAggregator) task).getError() > 0) {
+			out.println(String.format(ESTIMATE_FORMAT, Format.formatInterval(((TopTaskAggregator) task).getError())));
+		}
+	}
+
+	/**
+	 * Check and status are run constantly from status bars and only need the status file, so they're handled without
+	 * setting up the command line or anything to do with the log.
+	 */
+	private static boolean runQuickly(String[] args, PrintStream out) throws BadStatusFileException {
+		if (args.length == 1) {
+			switch (args[0]) {
+			case "-c":
+			case "--check":
+				out.println(new Timer(CURRENT_DIRECTORY, HOME_DIRECTORY).check().name());
+				return true;
+			case "-t":
+			case "--status":
+				print(out, new Timer(CURRENT_DIRECTORY, HOME_DIRECTORY).status());
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Runs a command line as if from the specified directory, returning the exit status.
+	 */
+	public static int run(String[] args, String currentDirectory, InputStream in, PrintStream out, PrintStream err) {
+		try {
+			if (runQuickly(args, out)) {
+				return 0;
+			}
+		} catch (BadStatusFileException e) {
+			err.println(describe(e));
+			return 1;
+		}
+
 		final Main timerApp = parse(args);
 		if (timerApp == null) {
-			printHelp();
+			printHelp(out);
+			return 0;
+		}
+
+		try {
+			timerApp.run(currentDirectory, in, out);
+			return 0;
+		} catch (Exit e) {
+			err.println(e.getMessage());
+			return 1;
+		} finally {
+			if (timerApp.getMetrics().isEnabled()) {
+				err.println(timerApp.getMetrics().toJson());
+			}
+		}
+	}
+
+	public static void main(String[] args) {
+		// Reports can run to a lot of lines, so only write them out in large blocks
+		final PrintStream out =
+				new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16));
+		final int status = run(args, CURRENT_DIRECTORY, System.in, out, System.err);
+		out.flush();
+
+		System.exit(status);
+	}
+
+	private static String describe(Exception e) {
+		if (e instanceof BadLogFileException) {
+			return String.format(
+					"There's something wrong with the log file. Either delete %s in the current directory or try to fix it",
+					Timer.LOG_FILE);
+		} else if (e instanceof BadStatusFileException) {
+			return String.format("There's something wrong the status file %s in your home directory",
+					Timer.STATUS_FILE);
+		} else if (e instanceof TimerAlreadyRunningException) {
+			return "The timer is already running";
+		} else if (e instanceof OtherTimerException) {
+			return "You're trying to operate on one timer when another is in operation. You can only use one timer at a time";
+		} else if (e instanceof TimerNotRunningException) {
+			return "The timer is not running";
+		} else if (e instanceof NoTaskSpecifiedException) {
+			return "You need to specify a task";
+		} else if (e instanceof BadTaskNameException) {
+			return "Task name contains invalid characters";
 		}
 
-		final Timer timer = new Timer(
-				timerApp.getDirectory() == null ? CURRENT_DIRECTORY : timerApp.getDirectory(), HOME_DIRECTORY);
+		return "Something went wrong";
+	}
+
+	private void run(String currentDirectory, InputStream in, PrintStream out) {
+		final Main timerApp = this;
+		final Timer timer = new Timer(timerApp.getDirectory() == null ? currentDirectory
+				: Paths.get(currentDirectory).resolve(timerApp.getDirectory()).normalize().toString(),
+				HOME_DIRECTORY);
+		timer.setParallel(timerApp.isParallel());
+		timer.setMetrics(timerApp.getMetrics());
+		timer.setTaskFilter(timerApp.getTaskFilter());
+
+		final PrintWriter writer = timerApp.getExport() != null ? new PrintWriter(
+				new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16)) : null;
+		timerApp.exporter = writer != null ? Exporter.create(timerApp.getExport(), writer) : null;
 
 		final Command command = timerApp.getCommand();
+		final Metrics.Phase phase = timerApp.getMetrics().start("run");
 		try {
 			switch (command) {
 			case Go:
@@ -239,46 +603,132 @@ public final class Main {
 				timer.resume(timerApp.getParameter());
 				break;
 			case Check:
-				System.out.println(timer.check().name());
+				out.println(timer.check().name());
 				break;
 			case Summary: {
 				final DateRange dateRange = timerApp.getDateRangeParameter();
-				print(timer.summary(dateRange.getStart(), dateRange.getEnd()));
+				timer.summary(dateRange.getStart(), dateRange.getEnd(), item -> render(out, item));
 				break;
 			}
 			case Detail: {
 				final DateRange dateRange = timerApp.getDateRangeParameter();
-				print(timer.detail(dateRange.getStart(), dateRange.getEnd()));
+				timer.detail(dateRange.getStart(), dateRange.getEnd(), item -> render(out, item));
 				break;
 			}
 			case Task: {
 				final DateRange dateRange = timerApp.getDateRangeParameter();
-				print(timer.task(dateRange.getStart(), dateRange.getEnd()));
+				final Aggregator<TimerTaskReport> task = timerApp.taskAggregator();
+				final ReportEngine engine = new ReportEngine(dateRange.getStart(), dateRange.getEnd(), task);
+				if (task instanceof TopTaskAggregator) {
+					// The totals of the whole log would hold every task at once
+					timer.stream(engine);
+				} else {
+					timer.reportTotals(engine);
+				}
+				renderTasks(out, task);
+				break;
+			}
+			case Combined: {
+				final DateRange dateRange = timerApp.getDateRangeParameter();
+				final SummaryAggregator summary = new SummaryAggregator();
+				final DetailAggregator detail = new DetailAggregator();
+				final Aggregator<TimerTaskReport> task = timerApp.taskAggregator();
+				timer.reportTotals(new ReportEngine(dateRange.getStart(), dateRange.getEnd(), summary, detail, task));
+
+				render(out, summary.results());
+				separate(out);
+				render(out, detail.results());
+				separate(out);
+				renderTasks(out, task);
+				break;
+			}
+			case Projects: {
+				final DateRange dateRange = timerApp.getDateRangeParameter();
+				render(out, Timer.projects(HOME_DIRECTORY, dateRange.getStart(), dateRange.getEnd(),
+						timerApp.getTaskFilter(), timerApp.getMetrics()));
+				break;
+			}
+			case Sessions: {
+				final DateRange dateRange = timerApp.getDateRangeParameter();
+				render(out, timer.sessions(dateRange.getStart(), dateRange.getEnd()));
+				break;
+			}
+			case Query: {
+				final List<Dimension> dimensions = timerApp.getDimensionsParameter();
+				final DateRange dateRange = timerApp.parameters.length > 1
+						? getDateRangeParameter(Arrays.copyOfRange(timerApp.parameters, 1, timerApp.parameters.length))
+						: new DateRange(null, null);
+				render(out, dimensions.contains(Dimension.PROJECT)
+						? Timer.query(HOME_DIRECTORY, dateRange.getStart(), dateRange.getEnd(),
+								timerApp.getTaskFilter(), dimensions, timerApp.getMetrics())
+						: timer.query(dateRange.getStart(), dateRange.getEnd(), timerApp.getTaskFilter(), dimensions));
 				break;
 			}
 			case Status:
-				print(timer.status());
+				render(out, timer.status());
+				break;
+			case Convert:
+				timer.convert();
 				break;
+			case Segment:
+				timer.segment();
+				break;
+			case Server:
+				new TimerServer(HOME_DIRECTORY).serve();
+				break;
+			case Import: {
+				final String events = timerApp.getParameter();
+				final InputStream input = events.equals("-") ? in
+						: new FileInputStream(Paths.get(currentDirectory).resolve(events).toFile());
+				try (final BufferedReader reader =
+						new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+					timer.importEvents(reader);
+				}
+				break;
+			}
+			case Watch: {
+				final String seconds = timerApp.getParameter();
+				long tick = 1;
+				if (seconds != null) {
+					try {
+						tick = Long.parseLong(seconds);
+					} catch (NumberFormatException e) {
+						tick = 0;
+					}
+
+					if (tick < 1) {
+						error("The number of seconds to watch the status every must be a whole number above 0");
+					}
+				}
+
+				new TimerWatch(timer, tick * 1000).watch(out);
+				break;
+			}
 			default:
 				break;
 			}
-		} catch (BadLogFileException e) {
-			error(String.format(
-					"There's something wrong with the log file. Either delete %s in the current directory or try to fix it",
-					Timer.LOG_FILE));
-		} catch (BadStatusFileException e) {
-			error(String.format("There's something wrong the status file %s in your home directory",
-					Timer.STATUS_FILE));
-		} catch (TimerAlreadyRunningException e) {
-			error("The timer is already running");
-		} catch (OtherTimerException e) {
-			error("You're trying to operate on one timer when another is in operation. You can only use one timer at a time");
-		} catch (TimerNotRunningException e) {
-			error("The timer is not running");
-		} catch (NoTaskSpecifiedException e) {
-			error("You need to specify a task");
-		} catch (BadTaskNameException e) {
-			error("Task name contains invalid characters");
+		} catch (BadLogFileException | BadStatusFileException | TimerAlreadyRunningException | OtherTimerException
+				| TimerNotRunningException | NoTaskSpecifiedException | BadTaskNameException e) {
+			error(describe(e));
+		} catch (BadEventException e) {
+			if (e.getCause() != null) {
+				error(String.format("Line %d of the events: %s", e.getLine(), describe((Exception) e.getCause())));
+			} else {
+				error(String.format("Line %d of the events isn't a valid event", e.getLine()));
+			}
+		} catch (IOException e) {
+			if (command == Command.Import) {
+				error("Couldn't read the events");
+			} else if (command == Command.Watch) {
+				error("Couldn't watch the status file");
+			} else {
+				error("Couldn't start the server");
+			}
+		} finally {
+			phase.close();
+			if (writer != null) {
+				writer.flush();
+			}
 		}
 	}
 }
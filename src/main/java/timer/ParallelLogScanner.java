@@ -0,0 +1,219 @@
+package timer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import timer.exception.BadLogFileException;
+import timer.report.MergeableReportEngine;
+import timer.report.ReportEngine;
+
+/**
+ * Reads a log for a report by memory mapping it and splitting it at line boundaries into chunks, which are parsed and
+ * aggregated in parallel before their results are merged.
+ */
+public final class ParallelLogScanner {
+	private static final long CHUNK_SIZE = 4 * 1024 * 1024;
+	private static final int BOUNDARY_READ_SIZE = 4096;
+
+	private final String logFilePath;
+	private final ForkJoinPool pool;
+
+	public ParallelLogScanner(String logFilePath) {
+		this(logFilePath, ForkJoinPool.commonPool());
+	}
+
+	public ParallelLogScanner(String logFilePath, ForkJoinPool pool) {
+		this.logFilePath = logFilePath;
+		this.pool = pool;
+	}
+
+	private static final class ScanException extends RuntimeException {
+		private static final long serialVersionUID = -2208385440412417416L;
+
+		private ScanException(Exception cause) {
+			super(cause);
+		}
+	}
+
+	private static long nextLine(FileChannel channel, long position, long size) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(BOUNDARY_READ_SIZE);
+		while (position < size) {
+			buffer.clear();
+			final int read = channel.read(buffer, position);
+			if (read <= 0) {
+				break;
+			}
+
+			for (int i = 0; i < read; i++) {
+				if (buffer.get(i) == '\n') {
+					return position + i + 1;
+				}
+			}
+
+			position += read;
+		}
+
+		return size;
+	}
+
+	// Finds the end of the last complete line, so that a line still being written is left alone
+	private static long lastLine(FileChannel channel, long from, long size) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(BOUNDARY_READ_SIZE);
+		long position = size;
+		while (position > from) {
+			final int length = (int) Math.min(BOUNDARY_READ_SIZE, position - from);
+			buffer.clear().limit(length);
+			channel.read(buffer, position - length);
+
+			for (int i = length - 1; i >= 0; i--) {
+				if (buffer.get(i) == '\n') {
+					return position - length + i + 1;
+				}
+			}
+
+			position -= length;
+		}
+
+		return from;
+	}
+
+	private static long[] boundaries(FileChannel channel, long from, long size) throws IOException {
+		final List<Long> boundaries = new ArrayList<>();
+		boundaries.add(from);
+
+		long position = from;
+		while (position < size) {
+			position = position + CHUNK_SIZE < size ? nextLine(channel, position + CHUNK_SIZE, size) : size;
+			boundaries.add(position);
+		}
+
+		final long[] result = new long[boundaries.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = boundaries.get(i);
+		}
+
+		return result;
+	}
+
+	private static void scan(MappedByteBuffer buffer, ReportEngine engine) throws BadLogFileException {
+		final TimerLogRecord record = new TimerLogRecord();
+		char[] line = new char[256];
+		int length = 0, lineStart = 0;
+		boolean ascii = true;
+
+		final int limit = buffer.limit();
+		for (int i = 0; i <= limit; i++) {
+			final byte next = i < limit ? buffer.get(i) : (byte) '\n';
+			if (next == '\n' || next == '\r') {
+				final boolean parsed;
+				if (ascii) {
+					parsed = record.parse(line, 0, length);
+				} else {
+					final ByteBuffer bytes = buffer.duplicate();
+					bytes.position(lineStart).limit(i);
+					parsed = record.parse(StandardCharsets.UTF_8.decode(bytes).toString());
+				}
+
+				if (parsed && !engine.accept(record)) {
+					return;
+				}
+
+				length = 0;
+				lineStart = i + 1;
+				ascii = true;
+			} else {
+				if (next < 0) {
+					ascii = false;
+				} else {
+					if (length == line.length) {
+						line = Arrays.copyOf(line, length * 2);
+					}
+
+					line[length++] = (char) next;
+				}
+			}
+		}
+	}
+
+	private static final class ScanTask extends RecursiveTask<MergeableReportEngine> {
+		private static final long serialVersionUID = 3870212734516811286L;
+
+		private final FileChannel channel;
+		private final long[] boundaries;
+		private final int from, to;
+		private final MergeableReportEngine engine;
+
+		private ScanTask(FileChannel channel, long[] boundaries, int from, int to, MergeableReportEngine engine) {
+			this.channel = channel;
+			this.boundaries = boundaries;
+			this.from = from;
+			this.to = to;
+			this.engine = engine;
+		}
+
+		@Override
+		protected MergeableReportEngine compute() {
+			if (to - from > 1) {
+				final int middle = (from + to) >>> 1;
+				final ScanTask first = new ScanTask(channel, boundaries, from, middle, engine);
+				final ScanTask second = new ScanTask(channel, boundaries, middle, to, engine);
+				second.fork();
+
+				final MergeableReportEngine result = first.compute();
+				result.merge(second.join());
+				return result;
+			}
+
+			final MergeableReportEngine result = engine.fork();
+			if (to > from) {
+				try {
+					final long position = boundaries[from];
+					scan(channel.map(FileChannel.MapMode.READ_ONLY, position, boundaries[to] - position), result);
+				} catch (IOException | BadLogFileException e) {
+					throw new ScanException(e);
+				}
+			}
+
+			return result;
+		}
+	}
+
+	private long scan(FileChannel channel, long from, long to, MergeableReportEngine engine) throws IOException {
+		final long[] boundaries = boundaries(channel, from, to);
+		engine.merge(pool.invoke(new ScanTask(channel, boundaries, 0, boundaries.length - 1, engine)));
+
+		return boundaries[boundaries.length - 1];
+	}
+
+	/**
+	 * Reads the log from the offset onwards, returning the offset of the end of the part read.
+	 */
+	public long scan(long from, MergeableReportEngine engine) throws BadLogFileException {
+		try (final FileChannel channel = FileChannel.open(Paths.get(logFilePath), StandardOpenOption.READ)) {
+			return scan(channel, from, channel.size(), engine);
+		} catch (IOException | ScanException e) {
+			throw new BadLogFileException();
+		}
+	}
+
+	/**
+	 * Reads the complete lines of the log from the offset onwards, returning the offset just past the last of them.
+	 */
+	public long scanLines(long from, MergeableReportEngine engine) throws BadLogFileException {
+		try (final FileChannel channel = FileChannel.open(Paths.get(logFilePath), StandardOpenOption.READ)) {
+			return scan(channel, from, lastLine(channel, from, channel.size()), engine);
+		} catch (IOException | ScanException e) {
+			throw new BadLogFileException();
+		}
+	}
+}
@@ -1,25 +1,43 @@
 package timer;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
-import java.util.Iterator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 import org.apache.commons.io.input.ReversedLinesFileReader;
 
-import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import timer.exception.BadEventException;
 import timer.exception.BadLogFileException;
 import timer.exception.BadStatusFileException;
 import timer.exception.BadTaskNameException;
@@ -27,35 +45,105 @@ import timer.exception.NoTaskSpecifiedException;
 import timer.exception.OtherTimerException;
 import timer.exception.TimerAlreadyRunningException;
 import timer.exception.TimerNotRunningException;
+import timer.lib.LineReader;
+import timer.lib.Metrics;
+import timer.report.DetailAggregator;
+import timer.report.DetailStreamAggregator;
+import timer.report.Dimension;
+import timer.report.MergeableReportEngine;
+import timer.report.QueryAggregator;
+import timer.report.ReportEngine;
+import timer.report.SessionAggregator;
+import timer.report.SummaryAggregator;
+import timer.report.SummaryStreamAggregator;
+import timer.report.TaskAggregator;
+import timer.report.TopTaskAggregator;
 
-@AllArgsConstructor
+@RequiredArgsConstructor
 public final class Timer {
 	public static final String LOG_FILE = ".timer";
 	public static final String STATUS_FILE = ".timer-status";
 
+	private static final String[] EVENT_DATE_FORMATS = { TimerLog.DATE_FORMAT, "yyyy-MM-dd HH:mm:ss" };
+
 	@Getter
 	private final String directory;
 
 	@Getter
 	private final String statusDirectory;
 
+	@Getter
+	@Setter
+	private boolean parallel;
+
+	// Holds entries back until commit is called, so that several can be written with one write and one sync
+	@Getter
+	@Setter
+	private boolean groupCommit;
+
+	private final List<TimerLog> pending = new ArrayList<>();
+	private TimerCheckpoint pendingCheckpoint;
+	private TimerStatus pendingStatus;
+
+	// The log found for the directory, kept for the life of the timer once there is one
+	private String foundLogFilePath;
+
+	// The lock on the log, held from reading the latest entry until the entries that follow it are written, so that
+	// concurrent invocations can't both go on from the same entry
+	private TimerLock lock;
+	private int holds;
+
+	// Records how long each phase of an operation takes, which costs nothing unless enabled
+	@Getter
+	@Setter
+	private Metrics metrics = Metrics.DISABLED;
+
+	// Only the tasks it lets through, named as reports name them, are reported on, or all of them if it's null
+	@Getter
+	@Setter
+	private Predicate<String> taskFilter;
+
+	private String findLogFilePath() {
+		final String logFilePath = Paths.get(directory, LOG_FILE).toString();
+		if (new File(logFilePath).isFile()) {
+			return logFilePath;
+		}
+
+		final TimerRoots roots = new TimerRoots(statusDirectory);
+		final String cachedLogFilePath = roots.get(directory);
+		if (cachedLogFilePath != null) {
+			return cachedLogFilePath;
+		}
+
+		String directory = new File(this.directory).getParent();
+		while (directory != null) {
+			final String parentLogFilePath = Paths.get(directory, LOG_FILE).toString();
+			if (new File(parentLogFilePath).isFile()) {
+				roots.put(this.directory, parentLogFilePath);
+				return parentLogFilePath;
+			}
+
+			directory = new File(directory).getParent();
+		}
+
+		return null;
+	}
+
 	private String logFilePath(boolean find) {
-		String logFilePath = Paths.get(directory, LOG_FILE).toString();
-
-		if (find) {
-			String directory = this.directory;
-			while (!new File(logFilePath).exists()) {
-				directory = new File(directory).getParent();
-				if (directory == null) {
-					logFilePath = null;
-					break;
-				}
+		if (!find) {
+			return Paths.get(directory, LOG_FILE).toString();
+		}
 
-				logFilePath = Paths.get(directory, LOG_FILE).toString();
+		if (foundLogFilePath == null) {
+			final Metrics.Phase phase = metrics.start("resolve");
+			try {
+				foundLogFilePath = findLogFilePath();
+			} finally {
+				phase.close();
 			}
 		}
 
-		return logFilePath;
+		return foundLogFilePath;
 	}
 
 	private String logFilePath() {
@@ -76,59 +164,348 @@ public final class Timer {
 		return java.nio.file.Paths.get(new File(logFilePath).getParent()).getFileName().toString();
 	}
 
-	private TimerLog latestTimerLog() throws BadLogFileException {
+	private static TimerLog readLatestTimerLog(String logFilePath) throws BadLogFileException {
+		if (BinaryLog.isBinary(logFilePath)) {
+			return BinaryLog.latest(logFilePath);
+		}
+
+		String logLine;
+		try (final ReversedLinesFileReader reader =
+				new ReversedLinesFileReader(new File(logFilePath), StandardCharsets.UTF_8)) {
+			do {
+				logLine = reader.readLine();
+			} while (logLine != null && logLine.length() == 0);
+		} catch (IOException e) {
+			throw new BadLogFileException();
+		}
+
+		return TimerLog.parse(logLine);
+	}
+
+	// The entry as it will be read back from the log
+	private static TimerLog asRead(boolean binary, TimerLog timerLog) {
+		if (binary) {
+			return timerLog;
+		}
+
+		final String task = timerLog.getTask() != null ? timerLog.getTask().trim() : "null";
+		return new TimerLog(timerLog.getAnchor(), timerLog.getStart(), timerLog.getEnd(), task);
+	}
+
+	/**
+	 * The checkpoint for the log, rebuilt from the log if it's missing or out of date, or null if there's no log.
+	 * Entries not yet committed are included.
+	 */
+	private TimerCheckpoint checkpoint() throws BadLogFileException {
+		if (pendingCheckpoint != null) {
+			return pendingCheckpoint;
+		}
+
 		final String logFilePath = logFilePath(true);
-		if (logFilePath != null) {
-			String logLine;
-			try (final ReversedLinesFileReader reader =
-					new ReversedLinesFileReader(new File(logFilePath), StandardCharsets.UTF_8)) {
-				do {
-					logLine = reader.readLine();
-				} while (logLine != null && logLine.length() == 0);
-			} catch (IOException e) {
-				throw new BadLogFileException();
+		if (logFilePath == null) {
+			return null;
+		}
+
+		final Metrics.Phase phase = metrics.start("latest");
+		try {
+			TimerCheckpoint checkpoint = TimerCheckpoint.load(logFilePath);
+			if (checkpoint == null) {
+				final TimerLog latest = readLatestTimerLog(logFilePath);
+				checkpoint = new TimerCheckpoint(latest, latest != null && latest.getAnchor() != null
+						? readWorkDone(logFilePath, latest.getAnchor()) : 0l);
+				checkpoint.save(logFilePath);
 			}
 
-			return TimerLog.parse(logLine);
+			return checkpoint;
+		} finally {
+			phase.close();
 		}
+	}
 
-		return null;
+	private TimerLog latestTimerLog() throws BadLogFileException {
+		final TimerCheckpoint checkpoint = checkpoint();
+		return checkpoint != null ? checkpoint.getLatest() : null;
+	}
+
+	// Releases the lock once it's no longer held for anything
+	private final class Hold implements AutoCloseable {
+		@Override
+		public void close() {
+			if (--holds == 0) {
+				lock.close();
+				lock = null;
+			}
+		}
+	}
+
+	private Hold hold() throws BadLogFileException {
+		if (holds == 0) {
+			lock = TimerLock.acquire(logFilePath());
+		}
+
+		holds++;
+		return new Hold();
+	}
+
+	// Whether the entries carry on from the latest entry of the log, with a finished entry only ever finishing the one
+	// before it
+	private static boolean follows(TimerLog latest, List<TimerLog> entries) {
+		TimerLog previous = latest;
+		for (TimerLog timerLog : entries) {
+			final boolean running = previous != null && previous.getEnd() == null;
+			if (timerLog.getEnd() == null ? running
+					: !running || !timerLog.getAnchor().equals(previous.getAnchor())
+							|| !timerLog.getStart().equals(previous.getStart())) {
+				return false;
+			}
+
+			previous = timerLog;
+		}
+
+		return true;
+	}
+
+	private void register(String logFilePath) {
+		try {
+			new TimerRegistry(statusDirectory).register(new File(logFilePath).getParent());
+		} catch (IOException e) {
+			// Not being registered only leaves the project out of cross-project reports
+		}
 	}
 
 	private void write(TimerLog timerLog) throws BadLogFileException {
-		try (final FileWriter writer = new FileWriter(logFilePath(), true)) {
-			TimerLog.write(writer, timerLog);
+		if (groupCommit) {
+			final TimerCheckpoint checkpoint = checkpoint();
+			pendingCheckpoint = (checkpoint != null ? checkpoint : new TimerCheckpoint(null, 0l))
+					.next(asRead(BinaryLog.isBinary(logFilePath()), timerLog));
+		}
+
+		pending.add(timerLog);
+		if (!groupCommit) {
+			commitLog();
+		}
+	}
+
+	/**
+	 * Appends any entries held back in group commit mode to the log, with one write and one sync, and then writes the
+	 * latest status. The log is locked while it's written, along with its checkpoint and indexes, so that concurrent
+	 * invocations can't interleave.
+	 */
+	public void commit() throws BadLogFileException, BadStatusFileException {
+		try {
+			commitLog();
+		} catch (BadLogFileException e) {
+			// The status goes with the entries it followed from
+			pendingStatus = null;
+			throw e;
+		}
+
+		if (pendingStatus != null) {
+			final TimerStatus timerStatus = pendingStatus;
+			pendingStatus = null;
+			writeStatus(timerStatus);
+		}
+	}
+
+	private void commitLog() throws BadLogFileException {
+		if (pending.isEmpty()) {
+			return;
+		}
+
+		final Metrics.Phase phase = metrics.start("write");
+		try {
+			appendLog();
+		} finally {
+			phase.close();
+		}
+	}
+
+	private void appendLog() throws BadLogFileException {
+		final String logFilePath = logFilePath();
+		register(logFilePath);
+
+		// New logs are rolled into monthly segments, older ones once they've been split with segment()
+		if (!new File(logFilePath).exists()) {
+			TimerSegment.create(logFilePath);
+		}
+
+		try (final Hold hold = hold();
+				final FileChannel channel = FileChannel.open(Paths.get(logFilePath), StandardOpenOption.CREATE,
+						StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			final long offset = channel.size(), modified = new File(logFilePath).lastModified();
+			final boolean binary = BinaryLog.isBinary(logFilePath);
+
+			// Only a checkpoint that matched the log before these entries can be carried forward
+			TimerCheckpoint checkpoint = offset > 0 ? TimerCheckpoint.load(logFilePath) : new TimerCheckpoint(null, 0l);
+			final TimerLog latest = checkpoint != null ? checkpoint.getLatest() : readLatestTimerLog(logFilePath);
+
+			// The entries are checked against the log while it's locked, but entries held back for a group commit may
+			// have been checked before it was
+			if (!follows(latest, pending)) {
+				throw new BadLogFileException();
+			}
+
+			long[] offsets = new long[pending.size()];
+			if (binary) {
+				offsets = BinaryLog.append(channel, logFilePath, pending);
+			} else {
+				final ByteArrayOutputStream lines = new ByteArrayOutputStream();
+				for (int i = 0; i < pending.size(); i++) {
+					offsets[i] = offset + lines.size();
+					lines.write(TimerLog.format(pending.get(i)).getBytes(StandardCharsets.UTF_8));
+				}
+
+				final ByteBuffer buffer = ByteBuffer.wrap(lines.toByteArray());
+				for (long position = offset; buffer.hasRemaining();) {
+					position += channel.write(buffer, position);
+				}
+			}
+
+			if (groupCommit) {
+				channel.force(false);
+			}
+
+			// The log only holds the month of its latest entry, so once the entries reach a new month the months
+			// before it are sealed off
+			final long month = TimerSegment.monthStart(pending.get(pending.size() - 1).getAnchor().getTime());
+			final boolean split = TimerSegment.isSegmented(logFilePath)
+					&& (latest == null || latest.getAnchor() == null
+							|| TimerSegment.monthStart(latest.getAnchor().getTime()) != month)
+					&& TimerSegment.split(logFilePath, channel, month);
+
+			if (checkpoint != null) {
+				for (TimerLog timerLog : pending) {
+					checkpoint = checkpoint.next(asRead(binary, timerLog));
+				}
+				checkpoint.save(logFilePath);
+			}
+
+			if (!binary) {
+				final TimerIndex index = TimerIndex.load(logFilePath);
+				if (!split && (offset == 0 || index.exists())) {
+					for (int i = 0; i < pending.size(); i++) {
+						index.record(pending.get(i).getAnchor().getTime(), offsets[i]);
+					}
+				} else {
+					TimerIndex.rebuild(logFilePath);
+				}
+			}
+
+			if (split) {
+				TimerTaskIndex.rebuild(logFilePath);
+			} else {
+				// Only finished entries are reported on, so they're the only ones the task index needs
+				final String[] tasks = new String[pending.size()];
+				for (int i = 0; i < pending.size(); i++) {
+					final TimerLog timerLog = asRead(binary, pending.get(i));
+					if (timerLog.getEnd() != null) {
+						tasks[i] = TimerTaskIndex.name(timerLog.getTask());
+					}
+				}
+
+				TimerTaskIndex.record(logFilePath, offset, modified, tasks, offsets, channel.size());
+				TimerRollup.record(logFilePath, offset, modified, channel.size(), new File(logFilePath).lastModified());
+			}
 		} catch (IOException e) {
 			throw new BadLogFileException();
+		} finally {
+			pending.clear();
+			pendingCheckpoint = null;
 		}
 	}
 
-	private void writeStatus(TimerStatus.Status status, Date anchor, Long workDone, Date start, Date end)
-			throws BadStatusFileException {
-		try (final FileWriter writer = new FileWriter(statusFilePath())) {
-			TimerStatus.write(writer, status, project(), new File(logFilePath(true)).getParent(), anchor, workDone,
-					start, end);
+	private boolean isIndexed(String logFilePath, long anchor, long offset) {
+		try (final RandomAccessFile file = new RandomAccessFile(logFilePath, "r")) {
+			if (offset > 0) {
+				file.seek(offset - 1);
+				if (file.read() != '\n') {
+					return false;
+				}
+			}
+
+			final String line = file.readLine();
+			final TimerLog timerLog = TimerLog.parse(line);
+			return timerLog != null && timerLog.getAnchor().getTime() == anchor;
+		} catch (IOException | BadLogFileException e) {
+			return false;
+		}
+	}
+
+	private long startOffset(String logFilePath, Date start) {
+		if (start != null) {
+			// Use the index to skip the part of the log before the start of the range
+			final TimerIndex index = TimerIndex.load(logFilePath);
+			final int entry = index.seek(start.getTime());
+			if (entry >= 0) {
+				if (isIndexed(logFilePath, index.anchor(entry), index.offset(entry))) {
+					return index.offset(entry);
+				}
+
+				// The log has changed underneath the index
+				index.delete();
+			}
+		}
+
+		return 0;
+	}
+
+	private void writeStatus(TimerStatus timerStatus) throws BadStatusFileException {
+		// Written to a file of its own first, so the status is never seen half written
+		final File statusFile = new File(statusFilePath());
+		final Metrics.Phase phase = metrics.start("write");
+		File tmpFile = null;
+		try {
+			tmpFile = File.createTempFile(STATUS_FILE, ".tmp", statusFile.getParentFile());
+			try (final FileWriter writer = new FileWriter(tmpFile)) {
+				TimerStatus.write(writer, timerStatus.getStatus(), timerStatus.getProject(),
+						timerStatus.getDirectory(), timerStatus.getAnchor(), timerStatus.getWorkDone(),
+						timerStatus.getStart(), timerStatus.getEnd());
+			}
+
+			Files.move(tmpFile.toPath(), statusFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
 		} catch (IOException e) {
+			if (tmpFile != null) {
+				tmpFile.delete();
+			}
+
 			throw new BadStatusFileException();
+		} finally {
+			phase.close();
 		}
 	}
 
-	private long calculateWorkDone(Date anchor) throws BadLogFileException {
+	private void writeStatus(TimerStatus.Status status, Date anchor, Long workDone, Date start, Date end)
+			throws BadStatusFileException {
+		final TimerStatus timerStatus = new TimerStatus(status, project(), new File(logFilePath()).getParent(), anchor,
+				workDone, start, end);
+		if (groupCommit) {
+			pendingStatus = timerStatus;
+		} else {
+			writeStatus(timerStatus);
+		}
+	}
+
+	private static long readWorkDone(String logFilePath, Date anchor) throws BadLogFileException {
 		long result = 0;
-		final File logFile = new File(logFilePath());
+		final File logFile = new File(logFilePath);
+		if (BinaryLog.isBinary(logFile.getPath())) {
+			return BinaryLog.workDone(logFile.getPath(), anchor.getTime());
+		}
+
 		if (logFile.exists()) {
 			try (final ReversedLinesFileReader reader =
 					new ReversedLinesFileReader(logFile, StandardCharsets.UTF_8)) {
+				final TimerLogRecord record = new TimerLogRecord();
 				String line;
 				while ((line = reader.readLine()) != null) {
-					final TimerLog timerLog = TimerLog.parse(line);
-					if (timerLog != null) {
-						if (timerLog.getAnchor().equals(anchor)) {
-							if (timerLog.getStart() == null) {
+					if (record.parse(line)) {
+						if (record.hasAnchor() && record.getAnchor() == anchor.getTime()) {
+							if (!record.hasStart()) {
 								throw new BadLogFileException();
 							}
-							if (timerLog.getEnd() != null) {
-								result += timerLog.getEnd().getTime() - timerLog.getStart().getTime();
+							if (record.hasEnd()) {
+								result += record.getEnd() - record.getStart();
 							}
 						} else {
 							break;
@@ -143,8 +520,25 @@ public final class Timer {
 		return result;
 	}
 
+	private long calculateWorkDone(Date anchor) throws BadLogFileException {
+		final TimerCheckpoint checkpoint = checkpoint();
+		if (checkpoint != null && checkpoint.getLatest() != null && anchor.equals(checkpoint.getLatest().getAnchor())) {
+			return checkpoint.getWorkDone();
+		}
+
+		return 0l;
+	}
+
 	public void start(String task, boolean resume) throws NoTaskSpecifiedException, BadTaskNameException,
 			BadLogFileException, BadStatusFileException, TimerAlreadyRunningException, OtherTimerException {
+		try (final Hold hold = hold()) {
+			start(task, resume, new Date());
+		}
+	}
+
+	private void start(String task, boolean resume, Date start) throws NoTaskSpecifiedException,
+			BadTaskNameException, BadLogFileException, BadStatusFileException, TimerAlreadyRunningException,
+			OtherTimerException {
 		if (task == null || task.trim().length() == 0) {
 			throw new NoTaskSpecifiedException();
 		}
@@ -170,7 +564,6 @@ public final class Timer {
 			}
 		}
 
-		final Date start = new Date();
 		final Date anchor;
 		if (!resume) {
 			anchor = start;
@@ -186,6 +579,13 @@ public final class Timer {
 
 	public void pause()
 			throws BadLogFileException, BadStatusFileException, TimerNotRunningException, OtherTimerException {
+		try (final Hold hold = hold()) {
+			pause(new Date());
+		}
+	}
+
+	private void pause(Date end)
+			throws BadLogFileException, BadStatusFileException, TimerNotRunningException, OtherTimerException {
 		// Find the latest timer log entry
 		final TimerLog latestTimerLog = latestTimerLog();
 		if (latestTimerLog == null || latestTimerLog.getEnd() != null) {
@@ -197,14 +597,19 @@ public final class Timer {
 			throw new OtherTimerException();
 		}
 
-		final Date end = new Date();
 		write(new TimerLog(latestTimerLog.getAnchor(), latestTimerLog.getStart(), end, latestTimerLog.getTask()));
 
-		writeStatus(TimerStatus.Status.PAUSED, latestTimerLog.getAnchor(), status().getWorkDone(),
+		writeStatus(TimerStatus.Status.PAUSED, latestTimerLog.getAnchor(), timerStatus.getWorkDone(),
 				latestTimerLog.getStart(), end);
 	}
 
 	public void stop() throws BadLogFileException, BadStatusFileException, OtherTimerException {
+		try (final Hold hold = hold()) {
+			stop(new Date());
+		}
+	}
+
+	private void stop(Date now) throws BadLogFileException, BadStatusFileException, OtherTimerException {
 		// Find the latest timer log entry
 		final TimerLog latestTimerLog = latestTimerLog();
 		if (latestTimerLog == null) {
@@ -218,19 +623,26 @@ public final class Timer {
 
 		final Date end;
 		if (latestTimerLog.getEnd() == null) {
-			end = new Date();
+			end = now;
 			write(new TimerLog(latestTimerLog.getAnchor(), latestTimerLog.getStart(), end,
 					latestTimerLog.getTask()));
 		} else {
 			end = latestTimerLog.getEnd();
 		}
 
-		writeStatus(TimerStatus.Status.STOPPED, latestTimerLog.getAnchor(), status().getWorkDone(),
+		writeStatus(TimerStatus.Status.STOPPED, latestTimerLog.getAnchor(), timerStatus.getWorkDone(),
 				latestTimerLog.getStart(), end);
 	}
 
 	public void resume(String task) throws BadLogFileException, BadTaskNameException, TimerAlreadyRunningException,
 			NoTaskSpecifiedException, BadStatusFileException, OtherTimerException {
+		try (final Hold hold = hold()) {
+			resume(task, new Date());
+		}
+	}
+
+	private void resume(String task, Date start) throws BadLogFileException, BadTaskNameException,
+			TimerAlreadyRunningException, NoTaskSpecifiedException, BadStatusFileException, OtherTimerException {
 		// Find the latest timer log entry
 		final TimerLog latestTimerLog = latestTimerLog();
 		if (latestTimerLog == null) {
@@ -242,7 +654,106 @@ public final class Timer {
 		}
 
 		final String newTask = task != null ? task : latestTimerLog.getTask();
-		start(newTask, true);
+		start(newTask, true, start);
+	}
+
+	private static Date parseEventDate(SimpleDateFormat[] dateFormats, String date) {
+		for (SimpleDateFormat dateFormat : dateFormats) {
+			final ParsePosition position = new ParsePosition(0);
+			final Date result = dateFormat.parse(date, position);
+			if (result != null && position.getIndex() == date.length()) {
+				return result;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Replays a stream of events, one per line as the time, the event and, for start and optionally resume, the task,
+	 * separated by commas. Times are in the log's own format or as yyyy-MM-dd HH:mm:ss, and have to be in order and
+	 * after the latest entry in the log. Blank lines and lines starting with # are skipped.
+	 * <p>
+	 * Each event is checked just as if it had been run on its own, but the entries are only written once all of them
+	 * have been checked, in one write, followed by the final status. Nothing is written if any event is bad. Returns
+	 * the number of events imported.
+	 */
+	public int importEvents(BufferedReader reader)
+			throws IOException, BadEventException, BadLogFileException, BadStatusFileException {
+		final SimpleDateFormat[] dateFormats = new SimpleDateFormat[EVENT_DATE_FORMATS.length];
+		for (int i = 0; i < dateFormats.length; i++) {
+			dateFormats[i] = new SimpleDateFormat(EVENT_DATE_FORMATS[i]);
+			dateFormats[i].setLenient(false);
+		}
+
+		final boolean wasGroupCommit = groupCommit;
+		groupCommit = true;
+		try (final Hold hold = hold()) {
+			int count = 0;
+			long line = 0;
+			long latest = Long.MIN_VALUE;
+
+			String event;
+			while ((event = reader.readLine()) != null) {
+				line++;
+				if (event.trim().length() == 0 || event.trim().startsWith("#")) {
+					continue;
+				}
+
+				final String[] parts = event.split(",", 3);
+				final Date time = parts.length > 1 ? parseEventDate(dateFormats, parts[0].trim()) : null;
+				if (time == null) {
+					throw new BadEventException(line, null);
+				}
+
+				final String task = parts.length > 2 && parts[2].trim().length() > 0 ? parts[2].trim() : null;
+				try {
+					// Events can't go back before anything already in the log
+					final TimerLog latestTimerLog = latestTimerLog();
+					if (latestTimerLog != null) {
+						final Date latestTime =
+								latestTimerLog.getEnd() != null ? latestTimerLog.getEnd() : latestTimerLog.getStart();
+						latest = Math.max(latest, latestTime != null ? latestTime.getTime() : Long.MIN_VALUE);
+					}
+
+					if (time.getTime() < latest) {
+						throw new BadEventException(line, null);
+					}
+
+					latest = time.getTime();
+
+					switch (parts[1].trim().toLowerCase()) {
+					case "start":
+						start(task, false, time);
+						break;
+					case "pause":
+						pause(time);
+						break;
+					case "stop":
+						stop(time);
+						break;
+					case "resume":
+						resume(task, time);
+						break;
+					default:
+						throw new BadEventException(line, null);
+					}
+				} catch (NoTaskSpecifiedException | BadTaskNameException | BadLogFileException | BadStatusFileException
+						| TimerAlreadyRunningException | TimerNotRunningException | OtherTimerException e) {
+					throw new BadEventException(line, e);
+				}
+
+				count++;
+			}
+
+			commit();
+			return count;
+		} finally {
+			pending.clear();
+			pendingCheckpoint = null;
+			pendingStatus = null;
+			groupCommit = wasGroupCommit;
+		}
 	}
 
 	public TimerStatus.Status check() throws BadStatusFileException {
@@ -255,136 +766,462 @@ public final class Timer {
 		return status.getStatus();
 	}
 
-	public List<TimerDetail> detail(Date start, Date end) throws BadLogFileException {
-		final List<TimerDetail> result = new ArrayList<>();
+	private void filter(ReportEngine engine) {
+		if (engine.getTaskFilter() == null) {
+			engine.setTaskFilter(taskFilter);
+		}
+	}
+
+	// Where the entries of the tasks the engine is filtered to are, or null if they're all to be read
+	private TimerTaskIndex search(String logFilePath, ReportEngine engine) throws BadLogFileException {
+		if (engine.getTaskFilter() == null || !new File(logFilePath).isFile()) {
+			return null;
+		}
+
+		try (final Metrics.Phase phase = metrics.start("search")) {
+			final TimerTaskIndex index = TimerTaskIndex.find(logFilePath, engine.getTaskFilter());
+			phase.read(index != null ? index.getRead() : 0l);
+			return index;
+		}
+	}
+
+	/**
+	 * Reads the log itself for the report, in parallel if the timer is set to, as the engine's aggregators can all be
+	 * merged.
+	 */
+	public void report(MergeableReportEngine engine) throws BadLogFileException {
 		final String logFilePath = logFilePath();
-		if (new File(logFilePath).exists()) {
-			final SortedMap<Date, SortedMap<String, Long>> tmpResults = new TreeMap<>();
-			try {
-				final Iterator<String> logLines = Files.lines(Paths.get(logFilePath)).iterator();
-				while (logLines.hasNext()) {
-					final TimerLog timerLog = TimerLog.parse(logLines.next());
-					if (timerLog != null && timerLog.getStart() != null && timerLog.getEnd() != null) {
-						if ((start == null || timerLog.getAnchor().getTime() >= start.getTime())
-								&& (end == null || timerLog.getAnchor().getTime() <= end.getTime())) {
-							String task = null;
-							if (timerLog.getTask() == null || timerLog.getTask().trim().equals("")
-									|| timerLog.getTask().toLowerCase().equals("null")) {
-								task = "<No Task>";
-							} else {
-								task = timerLog.getTask();
-							}
+		filter(engine);
+		final long records = engine.getRecords(), matched = engine.getMatched();
+		try (final Metrics.Phase phase = metrics.start("scan")) {
+			scan(logFilePath, engine, phase);
+			phase.records(engine.getRecords() - records, engine.getMatched() - matched);
+		}
+	}
 
-							final Date date = timerLog.getAnchor();
+	private void scan(String logFilePath, MergeableReportEngine engine, Metrics.Phase phase)
+			throws BadLogFileException {
+		// Binary entries take up about as much as their postings in the index, so for a binary log the index is only
+		// worth reading to skip segments
+		final boolean binary = BinaryLog.isBinary(logFilePath);
+		final TimerTaskIndex tasks =
+				!binary || TimerSegment.isSegmented(logFilePath) ? search(logFilePath, engine) : null;
+		for (TimerSegment segment : TimerSegment.list(logFilePath, engine.getStart(), engine.getEnd())) {
+			if (tasks != null && !tasks.hasMonth(TimerSegment.monthStart(segment.getMinAnchor()))) {
+				continue;
+			}
 
-							SortedMap<String, Long> timeSpent = tmpResults.get(date);
-							if (timeSpent == null) {
-								timeSpent = new TreeMap<>();
-								tmpResults.put(date, timeSpent);
-							}
+			phase.read(segment.getFile().length() - segment.getEntries());
+			if (!segment.scan(logFilePath, engine)) {
+				return;
+			}
+		}
 
-							Long current = timeSpent.get(task);
-							if (current == null) {
-								current = 0l;
-							}
+		if (!new File(logFilePath).exists()) {
+			return;
+		}
 
-							current += (timerLog.getEnd().getTime() - timerLog.getStart().getTime()) / 1000;
-							timeSpent.put(task, current);
-						}
-					}
-				}
+		if (parallel && !binary && tasks == null) {
+			final long offset = startOffset(logFilePath, engine.getStart());
+			phase.read(new ParallelLogScanner(logFilePath).scan(offset, engine) - offset);
+		} else {
+			scanLog(logFilePath, binary, tasks, engine, phase);
+		}
+	}
 
-				for (Map.Entry<Date, SortedMap<String, Long>> entry : tmpResults.entrySet()) {
-					result.add(new TimerDetail(entry.getKey(), entry.getValue()));
+	// Reads the log itself, after any segments, in order
+	private void scanLog(String logFilePath, boolean binary, TimerTaskIndex tasks, ReportEngine engine,
+			Metrics.Phase phase) throws BadLogFileException {
+		if (binary) {
+			phase.read(BinaryLog.scan(logFilePath, engine));
+			return;
+		}
+
+		final long offset = startOffset(logFilePath, engine.getStart());
+		if (tasks != null) {
+			// Only the entries of the tasks are read
+			phase.read(tasks.scan(logFilePath, offset, engine));
+			return;
+		}
+
+		try (final FileInputStream input = new FileInputStream(logFilePath)) {
+			input.getChannel().position(offset);
+			final BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+			final TimerLogRecord record = new TimerLogRecord();
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (record.parse(line) && !engine.accept(record)) {
+					break;
 				}
-			} catch (IOException e) {
-				throw new BadLogFileException();
 			}
+
+			phase.read(input.getChannel().position() - offset);
+		} catch (IOException e) {
+			throw new BadLogFileException();
 		}
-		return result;
 	}
 
-	public List<TimerTaskReport> task(Date start, Date end) throws BadLogFileException {
-		final List<TimerTaskReport> result = new ArrayList<>();
-		final String logFilePath = logFilePath();
-		if (new File(logFilePath).exists()) {
-			final SortedMap<String, Long> tmpResults = new TreeMap<>();
-			try {
-				final Iterator<String> logLines = Files.lines(Paths.get(logFilePath)).iterator();
-				while (logLines.hasNext()) {
-					final TimerLog timerLog = TimerLog.parse(logLines.next());
-					if (timerLog != null && timerLog.getStart() != null && timerLog.getEnd() != null) {
-						if ((start == null || timerLog.getAnchor().getTime() >= start.getTime())
-								&& (end == null || timerLog.getAnchor().getTime() <= end.getTime())) {
-							String task = null;
-							if (timerLog.getTask() == null || timerLog.getTask().trim().equals("")
-									|| timerLog.getTask().toLowerCase().equals("null")) {
-								task = "<No Task>";
-							} else {
-								task = timerLog.getTask();
-							}
+	private long scanFrom(String logFilePath, long offset, MergeableReportEngine engine) throws BadLogFileException {
+		if (BinaryLog.isBinary(logFilePath)) {
+			return BinaryLog.scan(logFilePath, offset, engine);
+		}
 
-							Long current = tmpResults.get(task);
-							if (current == null) {
-								current = 0l;
-							}
+		if (parallel) {
+			return new ParallelLogScanner(logFilePath).scanLines(offset, engine);
+		}
 
-							current += (timerLog.getEnd().getTime() - timerLog.getStart().getTime()) / 1000;
-							tmpResults.put(task, current);
-						}
+		try {
+			final FileInputStream input = new FileInputStream(logFilePath);
+			input.getChannel().position(offset);
+			try (final LineReader reader = new LineReader(input, offset)) {
+				final TimerLogRecord record = new TimerLogRecord();
+				String line;
+				while ((line = reader.readLine()) != null) {
+					if (record.parse(line)) {
+						engine.accept(record);
 					}
 				}
 
-				for (Map.Entry<String, Long> entry : tmpResults.entrySet()) {
-					result.add(new TimerTaskReport(entry.getKey(), entry.getValue()));
-				}
-			} catch (IOException e) {
-				throw new BadLogFileException();
+				return reader.getPosition();
 			}
+		} catch (IOException e) {
+			throw new BadLogFileException();
 		}
+	}
+
+	/**
+	 * Produces reports that only need the time spent by anchor and task, from the persisted totals after bringing
+	 * them up to date with anything written to the log since they were last saved. The totals are replayed in anchor
+	 * order, sealed months first, so streaming reports can be produced from them too.
+	 */
+	public void reportTotals(ReportEngine engine) throws BadLogFileException {
+		final String logFilePath = logFilePath();
+		filter(engine);
+
+		final long records = engine.getRecords(), matched = engine.getMatched();
+		try (final Metrics.Phase phase = metrics.start("replay")) {
+			// The saved totals of the log are read either way, so the index is only worth reading to skip segments
+			final TimerTaskIndex tasks = TimerSegment.isSegmented(logFilePath) ? search(logFilePath, engine) : null;
+			replaySegments(logFilePath, tasks, engine, phase);
+
+			if (new File(logFilePath).exists()) {
+				final TimerRollup rollup = loadRollup(logFilePath);
+				phase.read(new File(TimerRollup.rollupFilePath(logFilePath)).length());
+				rollup.replay(engine);
+			}
+
+			phase.records(engine.getRecords() - records, engine.getMatched() - matched);
+		}
+	}
+
+	private static void replaySegments(String logFilePath, TimerTaskIndex tasks, ReportEngine engine,
+			Metrics.Phase phase) throws BadLogFileException {
+		for (TimerSegment segment : TimerSegment.list(logFilePath, engine.getStart(), engine.getEnd())) {
+			if (tasks != null && !tasks.hasMonth(TimerSegment.monthStart(segment.getMinAnchor()))) {
+				continue;
+			}
+
+			phase.read(segment.getEntries());
+			segment.replay(engine);
+		}
+	}
+
+	/**
+	 * Produces reports that have to be kept to bounded memory, without holding more than a month's totals at a time.
+	 * Sealed months are replayed from their totals one segment at a time, while the log itself is read rather than
+	 * its totals, which cover all of it and so hold every task in it. That costs a read of the log, which goes back as
+	 * far as the log does if it isn't segmented.
+	 */
+	public void stream(ReportEngine engine) throws BadLogFileException {
+		final String logFilePath = logFilePath();
+		filter(engine);
+
+		final long records = engine.getRecords(), matched = engine.getMatched();
+		try (final Metrics.Phase phase = metrics.start("stream")) {
+			final boolean binary = BinaryLog.isBinary(logFilePath);
+			final TimerTaskIndex tasks =
+					!binary || TimerSegment.isSegmented(logFilePath) ? search(logFilePath, engine) : null;
+			replaySegments(logFilePath, tasks, engine, phase);
+
+			if (new File(logFilePath).exists()) {
+				scanLog(logFilePath, binary, tasks, engine, phase);
+			}
+
+			phase.records(engine.getRecords() - records, engine.getMatched() - matched);
+		}
+	}
+
+	// The totals for the log, brought up to date with anything written since they were saved
+	private TimerRollup loadRollup(String logFilePath) throws BadLogFileException {
+		final TimerRollup rollup = TimerRollup.load(logFilePath);
+		if (rollup.getOffset() < new File(logFilePath).length() || !rollup.isCurrent()) {
+			try (final Metrics.Phase phase = metrics.start("scan")) {
+				final DetailAggregator tail = new DetailAggregator();
+				final MergeableReportEngine engine = new MergeableReportEngine(null, null, tail);
+				final long position = scanFrom(logFilePath, rollup.getOffset(), engine);
+				phase.read(position - rollup.getOffset());
+				phase.records(engine.getRecords(), engine.getMatched());
+				rollup.add(tail, position);
+			}
+
+			try {
+				rollup.save();
+			} catch (BadLogFileException e) {
+				// The totals are still right for this report, they'll just be rebuilt next time
+			}
+		}
+
+		return rollup;
+	}
+
+	/**
+	 * Passes each anchor's detail to the listener as soon as it's complete, in anchor order.
+	 */
+	public void detail(Date start, Date end, Consumer<? super TimerDetail> listener) throws BadLogFileException {
+		final DetailStreamAggregator aggregator = new DetailStreamAggregator(listener);
+		reportTotals(new ReportEngine(start, end, aggregator));
+		aggregator.finish();
+	}
+
+	public List<TimerDetail> detail(Date start, Date end) throws BadLogFileException {
+		final List<TimerDetail> result = new ArrayList<>();
+		detail(start, end, result::add);
 		return result;
 	}
 
+	public List<TimerTaskReport> task(Date start, Date end) throws BadLogFileException {
+		final TaskAggregator aggregator = new TaskAggregator();
+		reportTotals(new ReportEngine(start, end, aggregator));
+		return aggregator.results();
+	}
+
+	/**
+	 * The tasks with the most time spent, most first, in bounded memory. The records come from {@link #stream}, as the
+	 * totals of the whole log would hold every task at once. See {@link TopTaskAggregator} for when the totals are
+	 * estimates.
+	 */
+	public List<TimerTaskReport> task(Date start, Date end, int limit) throws BadLogFileException {
+		final TopTaskAggregator aggregator = new TopTaskAggregator(limit);
+		stream(new ReportEngine(start, end, aggregator));
+		return aggregator.results();
+	}
+
+	/**
+	 * The distribution of the lengths of the intervals worked and of the totals by anchor, from one read of the log.
+	 */
+	public List<TimerDistribution> sessions(Date start, Date end) throws BadLogFileException {
+		final SessionAggregator aggregator = new SessionAggregator();
+		report(new MergeableReportEngine(start, end, aggregator));
+		return aggregator.results();
+	}
+
+	/**
+	 * Passes each anchor's summary to the listener as soon as it's complete, in anchor order.
+	 */
+	public void summary(Date start, Date end, Consumer<? super TimerSummary> listener) throws BadLogFileException {
+		final SummaryStreamAggregator aggregator = new SummaryStreamAggregator(listener);
+		reportTotals(new ReportEngine(start, end, aggregator));
+		aggregator.finish();
+	}
+
 	public List<TimerSummary> summary(Date start, Date end) throws BadLogFileException {
 		final List<TimerSummary> result = new ArrayList<>();
-		final String logFilePath = logFilePath();
-		if (new File(logFilePath).exists()) {
-			final SortedMap<Date, Long> tmpResults = new TreeMap<>();
-			try {
-				final Iterator<String> logLines = Files.lines(Paths.get(logFilePath)).iterator();
-				while (logLines.hasNext()) {
-					final TimerLog timerLog = TimerLog.parse(logLines.next());
-					if (timerLog != null && timerLog.getStart() != null && timerLog.getEnd() != null) {
-						if ((start == null || timerLog.getAnchor().getTime() >= start.getTime())
-								&& (end == null || timerLog.getAnchor().getTime() <= end.getTime())) {
-							final Date date = timerLog.getAnchor();
-							Long current = tmpResults.get(date);
-							if (current == null) {
-								current = 0l;
-							}
-							current += (timerLog.getEnd().getTime() - timerLog.getStart().getTime()) / 1000;
-							tmpResults.put(date, current);
-						}
-					}
-				}
+		summary(start, end, result::add);
+		return result;
+	}
 
-				for (Map.Entry<Date, Long> entry : tmpResults.entrySet()) {
-					result.add(new TimerSummary(entry.getKey(), entry.getValue()));
-				}
-			} catch (IOException e) {
-				throw new BadLogFileException();
+	/**
+	 * The registered projects that still have a log, each named after its directory, or by the whole path of the
+	 * directory if another one has the same name.
+	 */
+	private static Map<String, String> projectNames(List<String> directories) {
+		final List<String> projects = new ArrayList<>();
+		final Map<String, Integer> counts = new HashMap<>();
+		for (String directory : directories) {
+			if (new File(directory, LOG_FILE).isFile()) {
+				projects.add(directory);
+				counts.merge(new File(directory).getName(), 1, Integer::sum);
 			}
 		}
 
+		final Map<String, String> result = new LinkedHashMap<>();
+		for (String directory : projects) {
+			final String name = new File(directory).getName();
+			result.put(directory, counts.get(name) > 1 ? directory : name);
+		}
+
 		return result;
 	}
 
+	// Work done on one registered project, given its directory and its name
+	private interface ProjectTask<T> {
+		T run(String directory, String name) throws BadLogFileException;
+	}
+
+	/**
+	 * Runs the task on every registered project that still has a log, concurrently, returning the results by project
+	 * name in the order of the registry. A project that fails fails the lot, with what went wrong as the cause.
+	 */
+	private static <T> Map<String, T> forEachProject(String statusDirectory, ProjectTask<T> task)
+			throws BadLogFileException {
+		final List<String> directories;
+		try {
+			directories = new TimerRegistry(statusDirectory).projects();
+		} catch (IOException e) {
+			throw new BadLogFileException(e);
+		}
+
+		final Map<String, String> names = projectNames(directories);
+		final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		try {
+			final Map<String, Future<T>> parts = new LinkedHashMap<>();
+			for (Map.Entry<String, String> name : names.entrySet()) {
+				parts.put(name.getValue(), executor.submit(() -> task.run(name.getKey(), name.getValue())));
+			}
+
+			final Map<String, T> result = new LinkedHashMap<>();
+			for (Map.Entry<String, Future<T>> part : parts.entrySet()) {
+				result.put(part.getKey(), part.getValue().get());
+			}
+
+			return result;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new BadLogFileException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof BadLogFileException) {
+				throw (BadLogFileException) e.getCause();
+			}
+
+			throw new BadLogFileException(e.getCause());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Totals the time spent on every registered project, reading the projects concurrently.
+	 */
+	public static TimerProjectReport projects(String statusDirectory, Date start, Date end)
+			throws BadLogFileException {
+		return projects(statusDirectory, start, end, null, Metrics.DISABLED);
+	}
+
+	/**
+	 * Totals the time spent on the tasks the filter lets through in every registered project, or on all of them for
+	 * null, recording the phases of every project's read in the metrics.
+	 */
+	public static TimerProjectReport projects(String statusDirectory, Date start, Date end, Predicate<String> tasks,
+			Metrics metrics) throws BadLogFileException {
+		final Map<String, Long> totals = forEachProject(statusDirectory, (directory, name) -> {
+			final SummaryAggregator aggregator = new SummaryAggregator();
+			final ReportEngine engine = new ReportEngine(start, end, aggregator);
+			engine.setTaskFilter(tasks);
+
+			final Timer timer = new Timer(directory, statusDirectory);
+			timer.setMetrics(metrics);
+			timer.reportTotals(engine);
+
+			long total = 0;
+			for (TimerSummary summary : aggregator.results()) {
+				total += summary.getTime();
+			}
+
+			return total;
+		});
+
+		return new TimerProjectReport(new TreeMap<>(totals));
+	}
+
+	/**
+	 * The time spent grouped by the dimensions, ordered by them in turn, counting only the tasks the filter lets
+	 * through, or all of them for null. Both the range and the filter are applied to the persisted totals before
+	 * they're aggregated.
+	 */
+	public List<TimerGroup> query(Date start, Date end, Predicate<String> tasks, List<Dimension> dimensions)
+			throws BadLogFileException {
+		final QueryAggregator aggregator = new QueryAggregator(dimensions);
+		aggregator.setProject(project());
+
+		final ReportEngine engine = new ReportEngine(start, end, aggregator);
+		engine.setTaskFilter(tasks);
+		reportTotals(engine);
+
+		return aggregator.results();
+	}
+
+	/**
+	 * Runs a query across all registered projects, as {@link #projects(String, Date, Date)} does.
+	 */
+	public static List<TimerGroup> query(String statusDirectory, Date start, Date end, Predicate<String> tasks,
+			List<Dimension> dimensions, Metrics metrics) throws BadLogFileException {
+		final QueryAggregator result = new QueryAggregator(dimensions);
+		final Map<String, QueryAggregator> parts = forEachProject(statusDirectory, (directory, name) -> {
+			final QueryAggregator aggregator = result.fork();
+			aggregator.setProject(name);
+
+			final ReportEngine engine = new ReportEngine(start, end, aggregator);
+			engine.setTaskFilter(tasks);
+
+			final Timer timer = new Timer(directory, statusDirectory);
+			timer.setMetrics(metrics);
+			timer.reportTotals(engine);
+
+			return aggregator;
+		});
+
+		for (QueryAggregator part : parts.values()) {
+			result.merge(part);
+		}
+
+		return result.results();
+	}
+
+	public void convert() throws BadLogFileException {
+		final String logFilePath = logFilePath();
+		try (final Hold hold = hold()) {
+			BinaryLog.convert(logFilePath);
+		}
+	}
+
+	/**
+	 * Splits an existing log into monthly segments, leaving only the month of the latest entry in the log, and rolls
+	 * it into segments as it goes from then on. Any segments sealed before they were compressed are compressed.
+	 */
+	public void segment() throws BadLogFileException {
+		final String logFilePath = logFilePath();
+		TimerSegment.create(logFilePath);
+		if (!new File(logFilePath).isFile()) {
+			return;
+		}
+
+		try (final Hold hold = hold();
+				final FileChannel channel = FileChannel.open(Paths.get(logFilePath), StandardOpenOption.READ)) {
+			final TimerLog latest = readLatestTimerLog(logFilePath);
+			if (latest != null && latest.getAnchor() != null) {
+				TimerSegment.split(logFilePath, channel, TimerSegment.monthStart(latest.getAnchor().getTime()));
+			}
+
+			for (TimerSegment segment : TimerSegment.list(logFilePath, null, null)) {
+				segment.compress();
+			}
+		} catch (IOException e) {
+			throw new BadLogFileException();
+		}
+	}
+
 	public TimerStatus status() throws BadStatusFileException {
+		if (pendingStatus != null) {
+			return pendingStatus;
+		}
+
 		final File statusFile = new File(statusFilePath());
 		if (statusFile.exists()) {
 			String statusLine;
-			try (final BufferedReader reader = new BufferedReader(new FileReader(statusFile))) {
+			try (final Metrics.Phase phase = metrics.start("status");
+					final BufferedReader reader = new BufferedReader(new FileReader(statusFile))) {
 				statusLine = reader.readLine();
+				phase.read(statusFile.length());
 			} catch (IOException e) {
 				throw new BadStatusFileException();
 			}
@@ -0,0 +1,127 @@
+package timer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Date;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The latest entry of a log and the work already done for its anchor, kept next to the log so that starting, pausing
+ * and resuming don't have to read back through it. It's updated on every write and only trusted while the log has the
+ * length and modification time it had then, otherwise it's rebuilt from the log.
+ */
+@AllArgsConstructor
+public final class TimerCheckpoint {
+	public static final String CHECKPOINT_FILE = ".timer-checkpoint";
+
+	private static final long MAGIC = 0x54494d455243484bl;
+	private static final int VERSION = 1;
+
+	@Getter
+	private final TimerLog latest;
+
+	// Milliseconds of finished work for the anchor of the latest entry
+	@Getter
+	private final long workDone;
+
+	public static String checkpointFilePath(String logFilePath) {
+		return new File(new File(logFilePath).getParentFile(), CHECKPOINT_FILE).getPath();
+	}
+
+	private static void writeDate(DataOutputStream output, Date date) throws IOException {
+		output.writeLong(date != null ? date.getTime() : TimerLogRecord.NONE);
+	}
+
+	private static Date readDate(DataInputStream input) throws IOException {
+		final long millis = input.readLong();
+		return millis != TimerLogRecord.NONE ? new Date(millis) : null;
+	}
+
+	/**
+	 * Loads the checkpoint for the log, or returns null if there isn't one that's still up to date.
+	 */
+	public static TimerCheckpoint load(String logFilePath) {
+		final File logFile = new File(logFilePath);
+		final File checkpointFile = new File(checkpointFilePath(logFilePath));
+		if (checkpointFile.exists()) {
+			try (final DataInputStream input =
+					new DataInputStream(new BufferedInputStream(new FileInputStream(checkpointFile)))) {
+				if (input.readLong() == MAGIC && input.readInt() == VERSION && input.readLong() == logFile.length()
+						&& input.readLong() == logFile.lastModified()) {
+					if (!input.readBoolean()) {
+						return new TimerCheckpoint(null, 0l);
+					}
+
+					final Date anchor = readDate(input), start = readDate(input), end = readDate(input);
+					final String task = input.readBoolean() ? input.readUTF() : null;
+
+					return new TimerCheckpoint(new TimerLog(anchor, start, end, task), input.readLong());
+				}
+			} catch (IOException e) {
+				// Rebuild a damaged checkpoint
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * The checkpoint after the entry has been appended to the log.
+	 */
+	public TimerCheckpoint next(TimerLog timerLog) {
+		final long done = timerLog.getEnd() != null ? timerLog.getEnd().getTime() - timerLog.getStart().getTime() : 0l;
+		if (latest != null && latest.getAnchor() != null && latest.getAnchor().equals(timerLog.getAnchor())) {
+			return new TimerCheckpoint(timerLog, workDone + done);
+		}
+
+		return new TimerCheckpoint(timerLog, done);
+	}
+
+	/**
+	 * Saves the checkpoint as matching the log as it is now. Failing to save only means rebuilding it next time.
+	 */
+	public void save(String logFilePath) {
+		final File logFile = new File(logFilePath);
+		final File checkpointFile = new File(checkpointFilePath(logFilePath));
+		final File tmpFile = new File(checkpointFile.getPath() + ".tmp");
+		try {
+			try (final DataOutputStream output =
+					new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+				output.writeLong(MAGIC);
+				output.writeInt(VERSION);
+				output.writeLong(logFile.length());
+				output.writeLong(logFile.lastModified());
+
+				output.writeBoolean(latest != null);
+				if (latest != null) {
+					writeDate(output, latest.getAnchor());
+					writeDate(output, latest.getStart());
+					writeDate(output, latest.getEnd());
+
+					output.writeBoolean(latest.getTask() != null);
+					if (latest.getTask() != null) {
+						output.writeUTF(latest.getTask());
+					}
+
+					output.writeLong(workDone);
+				}
+			}
+
+			Files.move(tmpFile.toPath(), checkpointFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			tmpFile.delete();
+			checkpointFile.delete();
+		}
+	}
+}
@@ -7,11 +7,13 @@ import java.util.SortedMap;
 
 import lombok.AllArgsConstructor;
 import lombok.Getter;
+import timer.lib.Exported;
+import timer.lib.Exporter;
 import timer.lib.Format;
 import timer.lib.Formatted;
 
 @AllArgsConstructor
-public class TimerDetail implements Formatted {
+public class TimerDetail implements Formatted, Exported {
 	private static final int MAX_TASK_LENGTH = 64;
 	private static final String DATE_FORMAT = "E dd MMM yyyy (hh:mm)";
 	private static final String LINE_FORMAT = "    %s   %s";
@@ -46,4 +48,15 @@ public class TimerDetail implements Formatted {
 
 		return builder.toString();
 	}
+
+	@Override
+	public void export(Exporter exporter) {
+		for (Map.Entry<String, Long> entry : timeSpent.entrySet()) {
+			exporter.row("detail");
+			exporter.field("anchor", date);
+			exporter.field("task", entry.getKey());
+			exporter.field("seconds", entry.getValue());
+			exporter.end();
+		}
+	}
 }
@@ -0,0 +1,56 @@
+package timer;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import timer.lib.Exported;
+import timer.lib.Exporter;
+import timer.lib.Format;
+import timer.lib.Formatted;
+
+@AllArgsConstructor
+public class TimerDistribution implements Formatted, Exported {
+	private static final int MAX_NAME_LENGTH = 16;
+	private static final String LINE_FORMAT =
+			"%s%10d   mean %s   p50 \u001B[32m%s\u001B[0m   p90 %s   p99 %s   max %s";
+
+	@Getter
+	private final String name;
+
+	@Getter
+	private final long count;
+
+	@Getter
+	private final long mean;
+
+	@Getter
+	private final long p50;
+
+	@Getter
+	private final long p90;
+
+	@Getter
+	private final long p99;
+
+	@Getter
+	private final long max;
+
+	@Override
+	public String format() {
+		return String.format(LINE_FORMAT, Format.pad(Format.formatName(name, MAX_NAME_LENGTH), MAX_NAME_LENGTH),
+				count, Format.formatInterval(mean), Format.formatInterval(p50), Format.formatInterval(p90),
+				Format.formatInterval(p99), Format.formatInterval(max));
+	}
+
+	@Override
+	public void export(Exporter exporter) {
+		exporter.row("sessions");
+		exporter.field("name", name);
+		exporter.field("count", count);
+		exporter.field("mean", mean);
+		exporter.field("p50", p50);
+		exporter.field("p90", p90);
+		exporter.field("p99", p99);
+		exporter.field("max", max);
+		exporter.end();
+	}
+}
@@ -0,0 +1,80 @@
+package timer;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import timer.lib.Exported;
+import timer.lib.Exporter;
+import timer.lib.Format;
+import timer.lib.Formatted;
+import timer.report.Dimension;
+
+/**
+ * The time spent in one group of a query, with the period, project and task left null when not grouped by.
+ */
+@AllArgsConstructor
+public class TimerGroup implements Formatted, Exported {
+	private static final int PERIOD_LENGTH = 19;
+	private static final int MAX_PROJECT_LENGTH = 32;
+	private static final int MAX_TASK_LENGTH = 64;
+	private static final String DAY_FORMAT = "E dd MMM yyyy";
+	private static final String WEEK_FORMAT = "'Week of' dd MMM yyyy";
+	private static final String MONTH_FORMAT = "MMMM yyyy";
+	private static final String SEPARATOR = "   ";
+	private static final String TIME_FORMAT = "\u001B[32m%s\u001B[0m";
+
+	@Getter
+	private final Dimension unit;
+
+	@Getter
+	private final Date period;
+
+	@Getter
+	private final String project;
+
+	@Getter
+	private final String task;
+
+	@Getter
+	private final long timeSpent;
+
+	private String formatPeriod() {
+		final String format = unit == Dimension.WEEK ? WEEK_FORMAT : unit == Dimension.MONTH ? MONTH_FORMAT : DAY_FORMAT;
+		return new SimpleDateFormat(format).format(period);
+	}
+
+	@Override
+	public String format() {
+		final StringBuilder builder = new StringBuilder();
+		if (period != null) {
+			builder.append(Format.pad(formatPeriod(), PERIOD_LENGTH)).append(SEPARATOR);
+		}
+		if (project != null) {
+			builder.append(Format.pad(Format.formatName(project, MAX_PROJECT_LENGTH), MAX_PROJECT_LENGTH))
+					.append(SEPARATOR);
+		}
+		if (task != null) {
+			builder.append(Format.pad(Format.formatName(task, MAX_TASK_LENGTH), MAX_TASK_LENGTH)).append(SEPARATOR);
+		}
+
+		return builder.append(String.format(TIME_FORMAT, Format.formatInterval(timeSpent))).toString();
+	}
+
+	@Override
+	public void export(Exporter exporter) {
+		exporter.row("query");
+		if (period != null) {
+			exporter.day(unit.name().toLowerCase(), period);
+		}
+		if (project != null) {
+			exporter.field("project", project);
+		}
+		if (task != null) {
+			exporter.field("task", task);
+		}
+		exporter.field("seconds", timeSpent);
+		exporter.end();
+	}
+}
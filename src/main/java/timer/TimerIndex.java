@@ -0,0 +1,161 @@
+package timer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Arrays;
+
+import lombok.Getter;
+import timer.exception.BadLogFileException;
+import timer.lib.LineReader;
+
+/**
+ * Sparse index of a log file, mapping the anchor of a log entry to the byte offset of a line written for that
+ * anchor, not necessarily the first. An entry is only recorded once at least {@link #STRIDE} bytes have been written
+ * since the previous one, which keeps the index small while still letting reports skip straight to the part of the
+ * log they need.
+ */
+public final class TimerIndex {
+	public static final String INDEX_FILE = ".timer-index";
+
+	private static final long STRIDE = 16 * 1024;
+	private static final String LINE_FORMAT = "%d,%d\n";
+
+	@Getter
+	private final String path;
+
+	private long[] anchors = new long[16];
+	private long[] offsets = new long[16];
+	private int size;
+
+	private TimerIndex(String path) {
+		this.path = path;
+	}
+
+	private int size() {
+		return size;
+	}
+
+	private void add(long anchor, long offset) {
+		if (size == anchors.length) {
+			anchors = Arrays.copyOf(anchors, size * 2);
+			offsets = Arrays.copyOf(offsets, size * 2);
+		}
+
+		anchors[size] = anchor;
+		offsets[size++] = offset;
+	}
+
+	private boolean accepts(long anchor, long offset) {
+		final int size = size();
+		return size == 0 || (anchor > anchors[size - 1] && offset - offsets[size - 1] >= STRIDE);
+	}
+
+	public static String indexFilePath(String logFilePath) {
+		return new File(new File(logFilePath).getParentFile(), INDEX_FILE).getPath();
+	}
+
+	public static TimerIndex load(String logFilePath) {
+		final TimerIndex index = new TimerIndex(indexFilePath(logFilePath));
+		final File indexFile = new File(index.path);
+		if (indexFile.exists()) {
+			try (final BufferedReader reader = new BufferedReader(new FileReader(indexFile))) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					final int separator = line.indexOf(',');
+					if (separator > 0) {
+						index.add(Long.parseLong(line.substring(0, separator)),
+								Long.parseLong(line.substring(separator + 1)));
+					}
+				}
+			} catch (IOException | NumberFormatException e) {
+				// A damaged index is simply ignored, it will be rebuilt on the next write
+				indexFile.delete();
+				return new TimerIndex(index.path);
+			}
+		}
+
+		return index;
+	}
+
+	public static TimerIndex rebuild(String logFilePath) throws BadLogFileException {
+		final TimerIndex index = new TimerIndex(indexFilePath(logFilePath));
+		try (final LineReader reader = new LineReader(new FileInputStream(logFilePath), 0)) {
+			final TimerLogRecord record = new TimerLogRecord();
+			long lineOffset = reader.getPosition();
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (record.parse(line) && record.hasAnchor() && index.accepts(record.getAnchor(), lineOffset)) {
+					index.add(record.getAnchor(), lineOffset);
+				}
+
+				lineOffset = reader.getPosition();
+			}
+		} catch (IOException e) {
+			throw new BadLogFileException();
+		}
+
+		index.save();
+		return index;
+	}
+
+	private void save() throws BadLogFileException {
+		try (final FileWriter writer = new FileWriter(path)) {
+			for (int i = 0; i < size(); i++) {
+				writer.write(String.format(LINE_FORMAT, anchors[i], offsets[i]));
+			}
+		} catch (IOException e) {
+			throw new BadLogFileException();
+		}
+	}
+
+	public void record(long anchor, long offset) throws BadLogFileException {
+		if (accepts(anchor, offset)) {
+			add(anchor, offset);
+			try (final FileWriter writer = new FileWriter(path, true)) {
+				writer.write(String.format(LINE_FORMAT, anchor, offset));
+			} catch (IOException e) {
+				throw new BadLogFileException();
+			}
+		}
+	}
+
+	public boolean exists() {
+		return new File(path).exists();
+	}
+
+	public void delete() {
+		new File(path).delete();
+	}
+
+	/**
+	 * Finds the entry to start reading from for a report beginning at the specified anchor, which is the last entry
+	 * whose anchor is before it. An entry for the anchor itself won't do, as the line it points to needn't be the
+	 * first one written for the anchor. Returns -1 if the log has to be read from the start.
+	 */
+	public int seek(long anchor) {
+		int low = 0, high = size() - 1, result = -1;
+		while (low <= high) {
+			final int middle = (low + high) >>> 1;
+			if (anchors[middle] < anchor) {
+				result = middle;
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+
+		return result;
+	}
+
+	public long anchor(int entry) {
+		return anchors[entry];
+	}
+
+	public long offset(int entry) {
+		return offsets[entry];
+	}
+}
@@ -0,0 +1,61 @@
+package timer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import timer.exception.BadLogFileException;
+
+/**
+ * Exclusive lock on a log for writing, held on a file of its own next to the log rather than on the log itself. When
+ * months are split off, the log is replaced by a new file, and a lock held on the old one wouldn't keep writers out
+ * of it.
+ */
+public final class TimerLock implements AutoCloseable {
+	public static final String LOCK_FILE = ".timer-lock";
+
+	private final FileChannel channel;
+
+	private TimerLock(FileChannel channel) {
+		this.channel = channel;
+	}
+
+	public static String lockFilePath(String logFilePath) {
+		return new File(new File(logFilePath).getParentFile(), LOCK_FILE).getPath();
+	}
+
+	/**
+	 * Waits for the lock on the log, which is released again when this is closed.
+	 */
+	public static TimerLock acquire(String logFilePath) throws BadLogFileException {
+		FileChannel channel = null;
+		try {
+			channel = FileChannel.open(Paths.get(lockFilePath(logFilePath)), StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE);
+			channel.lock();
+			return new TimerLock(channel);
+		} catch (IOException e) {
+			if (channel != null) {
+				try {
+					channel.close();
+				} catch (IOException f) {
+					// Nothing more to be done
+				}
+			}
+
+			throw new BadLogFileException();
+		}
+	}
+
+	@Override
+	public void close() {
+		try {
+			// Releases the lock along with the channel
+			channel.close();
+		} catch (IOException e) {
+			// The lock goes with the process anyway
+		}
+	}
+}
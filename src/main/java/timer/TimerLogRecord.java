@@ -0,0 +1,312 @@
+package timer;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import lombok.Getter;
+import timer.exception.BadLogFileException;
+
+/**
+ * Reusable, mutable form of {@link TimerLog} for reading through a log without allocating per line. Dates are held as
+ * epoch milliseconds, with {@link #NONE} standing in for a missing date, and the task is only turned into a string
+ * when it is asked for.
+ */
+public final class TimerLogRecord {
+	public static final long NONE = Long.MIN_VALUE;
+
+	private static final String NULL = "null";
+	private static final char FIELD_SEPARATOR = ',';
+	private static final int FIELD_COUNT = 4;
+
+	private static final int DATE_LENGTH = 29;
+	private static final int MIN_YEAR = 1583;
+	private static final long MILLIS_MINUTE = 60 * 1000;
+	private static final long MILLIS_DAY = 24 * 60 * MILLIS_MINUTE;
+	private static final int[] DAYS_IN_MONTH = { 31, 29, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31 };
+
+	private char[] buffer = new char[256];
+	private int length;
+
+	@Getter
+	private long anchor = NONE;
+
+	@Getter
+	private long start = NONE;
+
+	@Getter
+	private long end = NONE;
+
+	private final int[] separators = new int[FIELD_COUNT - 1];
+	private int taskStart, taskEnd;
+	private String task;
+
+	private int offsetKey = -1;
+	private long offsetMillis;
+	private SimpleDateFormat dateFormat;
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	private static boolean isLeapYear(int year) {
+		return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+	}
+
+	private static long epochDay(int year, int month, int day) {
+		final int y = month <= 2 ? year - 1 : year;
+		final int era = (y >= 0 ? y : y - 399) / 400;
+		final int yearOfEra = y - era * 400;
+		final int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+		final int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+
+		return era * 146097l + dayOfEra - 719468;
+	}
+
+	private int digits(int from, int count) {
+		int result = 0;
+		for (int i = from; i < from + count; i++) {
+			final char c = buffer[i];
+			if (!isDigit(c)) {
+				return -1;
+			}
+
+			result = result * 10 + (c - '0');
+		}
+
+		return result;
+	}
+
+	private boolean isNull(int from, int to) {
+		if (from == to) {
+			return true;
+		}
+
+		if (to - from != NULL.length()) {
+			return false;
+		}
+
+		for (int i = 0; i < NULL.length(); i++) {
+			if (Character.toLowerCase(buffer[from + i]) != NULL.charAt(i)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	// Decodes a date in the exact format written by TimerLog, or returns NONE if it isn't in that format
+	private long decodeDate(int from) {
+		if (buffer[from + 4] != '-' || buffer[from + 7] != '-' || buffer[from + 10] != ' '
+				|| buffer[from + 13] != ':' || buffer[from + 16] != ':' || buffer[from + 19] != '.'
+				|| buffer[from + 23] != ' ') {
+			return NONE;
+		}
+
+		final int year = digits(from, 4), month = digits(from + 5, 2), day = digits(from + 8, 2);
+		final int hour = digits(from + 11, 2), minute = digits(from + 14, 2), second = digits(from + 17, 2);
+		final int millis = digits(from + 20, 3);
+		if (year < MIN_YEAR || month < 1 || month > 12 || day < 1 || day > DAYS_IN_MONTH[month - 1]
+				|| (month == 2 && day == 29 && !isLeapYear(year)) || hour < 0 || hour > 23 || minute < 0
+				|| minute > 59 || second < 0 || second > 59 || millis < 0) {
+			return NONE;
+		}
+
+		final char sign = buffer[from + 24];
+		final int offset = digits(from + 25, 4);
+		if ((sign != '+' && sign != '-') || offset < 0) {
+			return NONE;
+		}
+
+		// Logs are almost always written in the same zone, so remember the last offset seen
+		final int key = sign == '-' ? offset + 10000 : offset;
+		if (key != offsetKey) {
+			final long zoneMillis = ((offset / 100) * 60 + offset % 100) * MILLIS_MINUTE;
+			offsetMillis = sign == '-' ? -zoneMillis : zoneMillis;
+			offsetKey = key;
+		}
+
+		return epochDay(year, month, day) * MILLIS_DAY + ((hour * 60 + minute) * 60 + second) * 1000l + millis
+				- offsetMillis;
+	}
+
+	private long parseDate(int from, int to) throws BadLogFileException {
+		while (from < to && buffer[from] <= ' ') {
+			from++;
+		}
+		while (to > from && buffer[to - 1] <= ' ') {
+			to--;
+		}
+
+		if (isNull(from, to)) {
+			return NONE;
+		}
+
+		if (to - from == DATE_LENGTH) {
+			final long date = decodeDate(from);
+			if (date != NONE) {
+				return date;
+			}
+		}
+
+		// Anything unusual is left to the lenient parsing TimerLog has always done
+		if (dateFormat == null) {
+			dateFormat = new SimpleDateFormat(TimerLog.DATE_FORMAT);
+		}
+
+		try {
+			return dateFormat.parse(new String(buffer, from, to - from)).getTime();
+		} catch (ParseException e) {
+			throw new BadLogFileException();
+		}
+	}
+
+	public boolean parse(String logLine) throws BadLogFileException {
+		if (logLine == null) {
+			return false;
+		}
+
+		if (buffer.length < logLine.length()) {
+			buffer = new char[Math.max(logLine.length(), buffer.length * 2)];
+		}
+
+		logLine.getChars(0, logLine.length(), buffer, 0);
+		return parse(logLine.length());
+	}
+
+	public boolean parse(char[] chars, int from, int to) throws BadLogFileException {
+		if (buffer.length < to - from) {
+			buffer = new char[Math.max(to - from, buffer.length * 2)];
+		}
+
+		System.arraycopy(chars, from, buffer, 0, to - from);
+		return parse(to - from);
+	}
+
+	private boolean parse(int length) throws BadLogFileException {
+		this.length = length;
+		anchor = start = end = NONE;
+		taskStart = taskEnd = 0;
+		task = null;
+
+		boolean blank = true;
+		for (int i = 0; i < length && blank; i++) {
+			blank = buffer[i] <= ' ';
+		}
+
+		if (blank) {
+			return false;
+		}
+
+		// Trailing empty fields are dropped, as String.split would do
+		int last = length;
+		while (last > 0 && buffer[last - 1] == FIELD_SEPARATOR) {
+			last--;
+		}
+
+		int count = 0;
+		for (int i = 0; i < last; i++) {
+			if (buffer[i] == FIELD_SEPARATOR) {
+				if (count == separators.length) {
+					throw new BadLogFileException();
+				}
+
+				separators[count++] = i;
+			}
+		}
+
+		if (count != separators.length) {
+			throw new BadLogFileException();
+		}
+
+		anchor = parseDate(0, separators[0]);
+		start = parseDate(separators[0] + 1, separators[1]);
+		end = parseDate(separators[1] + 1, separators[2]);
+
+		taskStart = separators[2] + 1;
+		taskEnd = last;
+		while (taskStart < taskEnd && buffer[taskStart] <= ' ') {
+			taskStart++;
+		}
+		while (taskEnd > taskStart && buffer[taskEnd - 1] <= ' ') {
+			taskEnd--;
+		}
+
+		return true;
+	}
+
+	public void set(long anchor, long start, long end, String task) {
+		this.length = 0;
+		this.anchor = anchor;
+		this.start = start;
+		this.end = end;
+		this.task = task;
+	}
+
+	public boolean hasAnchor() {
+		return anchor != NONE;
+	}
+
+	public boolean hasStart() {
+		return start != NONE;
+	}
+
+	public boolean hasEnd() {
+		return end != NONE;
+	}
+
+	/**
+	 * Whether the task is empty or "null", which reports show as having no task.
+	 */
+	public boolean isTaskBlank() {
+		if (length == 0 && task != null) {
+			return task.equals("") || task.toLowerCase().equals(NULL);
+		}
+
+		return isNull(taskStart, taskEnd);
+	}
+
+	public int taskHashCode() {
+		if (length == 0 && task != null) {
+			return task.hashCode();
+		}
+
+		int result = 0;
+		for (int i = taskStart; i < taskEnd; i++) {
+			result = 31 * result + buffer[i];
+		}
+
+		return result;
+	}
+
+	public boolean taskEquals(String other) {
+		if (length == 0 && task != null) {
+			return task.equals(other);
+		}
+
+		if (other.length() != taskEnd - taskStart) {
+			return false;
+		}
+
+		for (int i = 0; i < other.length(); i++) {
+			if (buffer[taskStart + i] != other.charAt(i)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	public String getTask() {
+		if (task == null && length > 0) {
+			task = new String(buffer, taskStart, taskEnd - taskStart);
+		}
+
+		return task;
+	}
+
+	public TimerLog toTimerLog() {
+		return new TimerLog(hasAnchor() ? new Date(anchor) : null, hasStart() ? new Date(start) : null,
+				hasEnd() ? new Date(end) : null, getTask());
+	}
+}
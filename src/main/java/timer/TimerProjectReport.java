@@ -0,0 +1,51 @@
+package timer;
+
+import java.util.Map;
+import java.util.SortedMap;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import timer.lib.Exported;
+import timer.lib.Exporter;
+import timer.lib.Format;
+import timer.lib.Formatted;
+
+@AllArgsConstructor
+public class TimerProjectReport implements Formatted, Exported {
+	private static final int MAX_PROJECT_LENGTH = 64;
+	private static final String LINE_FORMAT = "%s   %s";
+	private static final String TOTAL = Format.pad("", MAX_PROJECT_LENGTH);
+
+	@Getter
+	private final SortedMap<String, Long> timeSpent;
+
+	@Override
+	public String format() {
+		final StringBuilder builder = new StringBuilder();
+
+		long total = 0l;
+		for (Map.Entry<String, Long> entry : timeSpent.entrySet()) {
+			builder.append(String.format(LINE_FORMAT,
+					Format.pad(Format.formatName(entry.getKey(), MAX_PROJECT_LENGTH), MAX_PROJECT_LENGTH),
+					Format.formatInterval(entry.getValue())));
+			builder.append("\n");
+
+			total += entry.getValue();
+		}
+
+		builder.append(
+				String.format(LINE_FORMAT, TOTAL, "\u001B[32m" + Format.formatInterval(total) + "\u001B[0m"));
+
+		return builder.toString();
+	}
+
+	@Override
+	public void export(Exporter exporter) {
+		for (Map.Entry<String, Long> entry : timeSpent.entrySet()) {
+			exporter.row("project");
+			exporter.field("project", entry.getKey());
+			exporter.field("seconds", entry.getValue());
+			exporter.end();
+		}
+	}
+}
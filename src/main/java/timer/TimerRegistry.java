@@ -0,0 +1,55 @@
+package timer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+
+/**
+ * The list of known project directories, one per line in ~/.timer/timers, which is also what the scripts choose
+ * timers from.
+ */
+@AllArgsConstructor
+public final class TimerRegistry {
+	public static final String REGISTRY_DIRECTORY = ".timer";
+	public static final String REGISTRY_FILE = "timers";
+
+	private final String statusDirectory;
+
+	private File registryFile() {
+		return Paths.get(statusDirectory, REGISTRY_DIRECTORY, REGISTRY_FILE).toFile();
+	}
+
+	public List<String> projects() throws IOException {
+		final List<String> result = new ArrayList<>();
+		final File registryFile = registryFile();
+		if (registryFile.exists()) {
+			try (final BufferedReader reader = new BufferedReader(new FileReader(registryFile))) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					if (line.trim().length() > 0 && !result.contains(line.trim())) {
+						result.add(line.trim());
+					}
+				}
+			}
+		}
+
+		return result;
+	}
+
+	public void register(String projectDirectory) throws IOException {
+		if (!projects().contains(projectDirectory)) {
+			final File registryFile = registryFile();
+			registryFile.getParentFile().mkdirs();
+			try (final FileWriter writer = new FileWriter(registryFile, true)) {
+				writer.write(projectDirectory + "\n");
+			}
+		}
+	}
+}
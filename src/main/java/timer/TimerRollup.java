@@ -0,0 +1,221 @@
+package timer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import lombok.Getter;
+import timer.exception.BadLogFileException;
+import timer.lib.Crc32;
+import timer.report.DetailAggregator;
+import timer.report.ReportEngine;
+
+/**
+ * Persisted totals by anchor and task for the first {@link #getOffset()} bytes of a log, from which the summary,
+ * detail and task reports for any date range can be produced. As the log is only ever appended to, bringing the
+ * totals up to date only needs the part of the log written since. The checksum of the part covered is kept to spot a
+ * log that has been replaced or edited, in which case the totals are rebuilt. It's only read through again once the log
+ * no longer has the length and modification time it had when the totals were saved, and is carried on over the new
+ * part rather than taken again from the start. Appends through the timer move the saved length and modification time
+ * on with the log, so that only changes made some other way have the whole log read again.
+ */
+public final class TimerRollup {
+	public static final String ROLLUP_FILE = ".timer-rollup";
+
+	private static final long MAGIC = 0x54494d4552525550l;
+	private static final int VERSION = 2;
+	private static final int READ_SIZE = 64 * 1024;
+
+	// Where the length and modification time are in the file, after the magic, version, offset and checksum
+	private static final int LOG_STATE_POSITION = 8 + 4 + 8 + 8;
+
+	private final String logFilePath;
+
+	@Getter
+	private long offset;
+
+	private long checksum;
+
+	// The length and modification time of the log when the checksum was taken
+	private long length;
+	private long modified;
+
+	@Getter
+	private DetailAggregator totals = new DetailAggregator();
+
+	private TimerRollup(String logFilePath) {
+		this.logFilePath = logFilePath;
+	}
+
+	public static String rollupFilePath(String logFilePath) {
+		return new File(new File(logFilePath).getParentFile(), ROLLUP_FILE).getPath();
+	}
+
+	/**
+	 * The checksum of the log up to the offset, carried on from the specified checksum of it up to an earlier offset.
+	 */
+	static long checksum(String logFilePath, long from, long to, long checksum) throws IOException {
+		long result = checksum;
+		if (from >= to) {
+			return result;
+		}
+
+		try (final FileInputStream input = new FileInputStream(logFilePath)) {
+			input.getChannel().position(from);
+			final byte[] buffer = new byte[READ_SIZE];
+			for (long position = from; position < to;) {
+				final int read = input.read(buffer, 0, (int) Math.min(buffer.length, to - position));
+				if (read < 0) {
+					throw new EOFException();
+				}
+
+				result = Crc32.update(result, buffer, 0, read);
+				position += read;
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Whether the log still starts with the bytes the checksum was taken of, when it had the specified length and
+	 * modification time. If it still has them it can't have been touched since, otherwise the bytes are read again.
+	 */
+	static boolean matches(String logFilePath, long offset, long checksum, long length, long modified) {
+		final File logFile = new File(logFilePath);
+		if (logFile.length() == length && logFile.lastModified() == modified) {
+			return true;
+		}
+
+		try {
+			return logFile.length() >= offset && checksum(logFilePath, 0l, offset, 0l) == checksum;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Loads the totals for the log, starting again from nothing if there aren't any or they no longer match it.
+	 */
+	public static TimerRollup load(String logFilePath) {
+		final TimerRollup rollup = new TimerRollup(logFilePath);
+		final File rollupFile = new File(rollupFilePath(logFilePath));
+		if (rollupFile.exists()) {
+			try (final DataInputStream input =
+					new DataInputStream(new BufferedInputStream(new FileInputStream(rollupFile)))) {
+				if (input.readLong() == MAGIC && input.readInt() == VERSION) {
+					rollup.offset = input.readLong();
+					rollup.checksum = input.readLong();
+					rollup.length = input.readLong();
+					rollup.modified = input.readLong();
+					rollup.totals = DetailAggregator.read(input);
+
+					if (rollup.offset <= rollup.length
+							&& matches(logFilePath, rollup.offset, rollup.checksum, rollup.length, rollup.modified)) {
+						return rollup;
+					}
+				}
+			} catch (IOException e) {
+				// Rebuild damaged totals
+			}
+		}
+
+		return new TimerRollup(logFilePath);
+	}
+
+	/**
+	 * Moves the saved totals on over entries appended to the log, which should be locked, if they were current for the
+	 * log as it was before, with the specified length and modification time. The totals go on covering only the part
+	 * of the log they did, which the append leaves as it was, but are still current for the log as it is now, so that
+	 * they're brought up to date from the new entries without the rest of the log being read to check them.
+	 */
+	public static void record(String logFilePath, long length, long modified, long newLength, long newModified) {
+		try (final FileChannel channel = FileChannel.open(Paths.get(rollupFilePath(logFilePath)),
+				StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			final ByteBuffer header = ByteBuffer.allocate(LOG_STATE_POSITION + 2 * 8);
+			while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+				// Read the whole header
+			}
+
+			if (header.hasRemaining() || header.getLong(0) != MAGIC || header.getInt(8) != VERSION
+					|| header.getLong(LOG_STATE_POSITION) != length
+					|| header.getLong(LOG_STATE_POSITION + 8) != modified) {
+				return;
+			}
+
+			final ByteBuffer state = ByteBuffer.allocate(2 * 8).putLong(newLength).putLong(newModified);
+			state.flip();
+			for (long position = LOG_STATE_POSITION; state.hasRemaining();) {
+				position += channel.write(state, position);
+			}
+		} catch (IOException e) {
+			// The totals are checked against the whole log next time instead
+		}
+	}
+
+	/**
+	 * Whether the log still has the length and modification time it had when the totals were last brought up to date,
+	 * as otherwise it's read through to check them every time until they're saved again.
+	 */
+	public boolean isCurrent() {
+		final File logFile = new File(logFilePath);
+		return logFile.length() == length && logFile.lastModified() == modified;
+	}
+
+	/**
+	 * Adds the totals for the part of the log from the current offset up to the new one.
+	 */
+	public void add(DetailAggregator tail, long offset) throws BadLogFileException {
+		totals.merge(tail);
+
+		// Taken before the checksum, so that anything written meanwhile has the log checked again next time
+		final File logFile = new File(logFilePath);
+		length = logFile.length();
+		modified = logFile.lastModified();
+		try {
+			checksum = checksum(logFilePath, this.offset, offset, checksum);
+		} catch (IOException e) {
+			throw new BadLogFileException();
+		}
+		this.offset = offset;
+	}
+
+	public void save() throws BadLogFileException {
+		final File rollupFile = new File(rollupFilePath(logFilePath));
+		final File tmpFile = new File(rollupFile.getPath() + ".tmp");
+		try {
+			try (final DataOutputStream output =
+					new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+				output.writeLong(MAGIC);
+				output.writeInt(VERSION);
+				output.writeLong(offset);
+				output.writeLong(checksum);
+				output.writeLong(length);
+				output.writeLong(modified);
+				totals.write(output);
+			}
+
+			Files.move(tmpFile.toPath(), rollupFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			tmpFile.delete();
+			throw new BadLogFileException();
+		}
+	}
+
+	public void replay(ReportEngine engine) throws BadLogFileException {
+		totals.replay(engine);
+	}
+}
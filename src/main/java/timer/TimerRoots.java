@@ -0,0 +1,105 @@
+package timer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+
+/**
+ * Cache of the log found for each directory a timer has been used from, kept in ~/.timer/roots as a directory and
+ * log path per line separated by a tab. This saves walking up from deep subdirectories looking for the log. An entry
+ * is only used while its log still exists and no directory in between has a log of its own, which checking costs a
+ * lookup per level but no reading.
+ */
+@AllArgsConstructor
+public final class TimerRoots {
+	public static final String ROOTS_FILE = "roots";
+
+	private static final char SEPARATOR = '\t';
+
+	private final String statusDirectory;
+
+	private File rootsFile() {
+		return Paths.get(statusDirectory, TimerRegistry.REGISTRY_DIRECTORY, ROOTS_FILE).toFile();
+	}
+
+	private Map<String, String> load() {
+		final Map<String, String> result = new LinkedHashMap<>();
+		final File rootsFile = rootsFile();
+		if (rootsFile.exists()) {
+			try (final BufferedReader reader = new BufferedReader(new FileReader(rootsFile))) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					final int separator = line.indexOf(SEPARATOR);
+					if (separator > 0) {
+						result.put(line.substring(0, separator), line.substring(separator + 1));
+					}
+				}
+			} catch (IOException e) {
+				// Treated as empty, and rewritten on the next change
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * The log cached for the directory, or null if there isn't one, it no longer exists or a log has been started
+	 * since in a directory in between, which would be found first.
+	 */
+	public String get(String directory) {
+		final String logFilePath = load().get(directory);
+		if (logFilePath == null || !new File(logFilePath).isFile()) {
+			return null;
+		}
+
+		final File logFile = new File(logFilePath);
+		File parent = new File(directory);
+		while (parent != null && !parent.equals(logFile.getParentFile())) {
+			if (new File(parent, logFile.getName()).isFile()) {
+				return null;
+			}
+
+			parent = parent.getParentFile();
+		}
+
+		// The log isn't above the directory at all
+		return parent != null ? logFilePath : null;
+	}
+
+	/**
+	 * Caches the log for the directory. Failing to save it only means walking up to the log again next time.
+	 */
+	public void put(String directory, String logFilePath) {
+		final Map<String, String> roots = load();
+		if (logFilePath.equals(roots.get(directory))) {
+			return;
+		}
+
+		roots.put(directory, logFilePath);
+
+		final File rootsFile = rootsFile();
+		final File tmpFile = new File(rootsFile.getPath() + ".tmp");
+		try {
+			rootsFile.getParentFile().mkdirs();
+			try (final FileWriter writer = new FileWriter(tmpFile)) {
+				for (Map.Entry<String, String> root : roots.entrySet()) {
+					writer.write(root.getKey() + SEPARATOR + root.getValue() + "\n");
+				}
+			}
+
+			Files.move(tmpFile.toPath(), rootsFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			tmpFile.delete();
+		}
+	}
+}
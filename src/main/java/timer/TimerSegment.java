@@ -0,0 +1,476 @@
+package timer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import lombok.Getter;
+import timer.exception.BadLogFileException;
+import timer.lib.LineReader;
+import timer.report.DetailAggregator;
+import timer.report.ReportEngine;
+
+/**
+ * A month of a log sealed off into a file of its own under {@link #SEGMENTS_DIRECTORY}, so that the log itself only
+ * holds the current month and reports only open the months in their range. Segments are named after the UTC month
+ * their anchors fall in. A segment starts with a header giving the range of its anchors, the number of entries and
+ * the totals by anchor and task, followed by the entries as they were in the log. As segments are never written to
+ * again and are rarely read beyond their totals, the entries are gzipped and only inflated as they're read.
+ */
+public final class TimerSegment {
+	public static final String SEGMENTS_DIRECTORY = ".timer-segments";
+
+	private static final long MAGIC = 0x54494d4552534547l;
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 8 + 4 + 1 + 4 * 8;
+	private static final int BINARY = 1;
+	private static final int COMPRESSED = 2;
+	private static final int COPY_SIZE = 64 * 1024;
+	private static final String NAME_FORMAT = "yyyy-MM";
+	private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+	@Getter
+	private final File file;
+
+	@Getter
+	private final boolean binary;
+
+	@Getter
+	private final boolean compressed;
+
+	@Getter
+	private final long minAnchor;
+
+	@Getter
+	private final long maxAnchor;
+
+	@Getter
+	private final long count;
+
+	// Offset of the first entry, which is also the size of the header and totals
+	@Getter
+	private final long entries;
+
+	private TimerSegment(File file, int flags, long minAnchor, long maxAnchor, long count, long entries) {
+		this.file = file;
+		this.binary = (flags & BINARY) != 0;
+		this.compressed = (flags & COMPRESSED) != 0;
+		this.minAnchor = minAnchor;
+		this.maxAnchor = maxAnchor;
+		this.count = count;
+		this.entries = entries;
+	}
+
+	public static String segmentsDirectoryPath(String logFilePath) {
+		return new File(new File(logFilePath).getParentFile(), SEGMENTS_DIRECTORY).getPath();
+	}
+
+	public static boolean isSegmented(String logFilePath) {
+		return new File(segmentsDirectoryPath(logFilePath)).isDirectory();
+	}
+
+	/**
+	 * Sets the log up to be rolled into segments from now on.
+	 */
+	public static void create(String logFilePath) throws BadLogFileException {
+		final File directory = new File(segmentsDirectoryPath(logFilePath));
+		if (!directory.mkdirs() && !directory.isDirectory()) {
+			throw new BadLogFileException();
+		}
+	}
+
+	private static Calendar month(long anchor) {
+		final Calendar calendar = Calendar.getInstance(UTC);
+		calendar.setTimeInMillis(anchor);
+		calendar.set(Calendar.DAY_OF_MONTH, 1);
+		calendar.set(Calendar.HOUR_OF_DAY, 0);
+		calendar.set(Calendar.MINUTE, 0);
+		calendar.set(Calendar.SECOND, 0);
+		calendar.set(Calendar.MILLISECOND, 0);
+
+		return calendar;
+	}
+
+	/**
+	 * The start of the month the anchor falls in, which is where the log is split.
+	 */
+	public static long monthStart(long anchor) {
+		return month(anchor).getTimeInMillis();
+	}
+
+	private static long nextMonthStart(long anchor) {
+		final Calendar calendar = month(anchor);
+		calendar.add(Calendar.MONTH, 1);
+
+		return calendar.getTimeInMillis();
+	}
+
+	private static SimpleDateFormat nameFormat() {
+		final SimpleDateFormat nameFormat = new SimpleDateFormat(NAME_FORMAT);
+		nameFormat.setTimeZone(UTC);
+		nameFormat.setLenient(false);
+
+		return nameFormat;
+	}
+
+	// The start of the month the segment is named after, or NONE for any other file
+	private static long monthStart(String name) {
+		if (name.length() != NAME_FORMAT.length()) {
+			return TimerLogRecord.NONE;
+		}
+
+		try {
+			return nameFormat().parse(name).getTime();
+		} catch (ParseException e) {
+			return TimerLogRecord.NONE;
+		}
+	}
+
+	private static TimerSegment load(File file) throws BadLogFileException {
+		try (final DataInputStream input = new DataInputStream(new FileInputStream(file))) {
+			final byte[] header = new byte[HEADER_SIZE];
+			input.readFully(header);
+
+			final ByteBuffer buffer = ByteBuffer.wrap(header);
+			if (buffer.getLong() != MAGIC || buffer.getInt() != VERSION) {
+				throw new BadLogFileException();
+			}
+
+			return new TimerSegment(file, buffer.get(), buffer.getLong(), buffer.getLong(), buffer.getLong(),
+					buffer.getLong());
+		} catch (IOException e) {
+			throw new BadLogFileException();
+		}
+	}
+
+	/**
+	 * The segments of the log with anchors in the range, in order. Only segments named after a month overlapping the
+	 * range are opened.
+	 */
+	public static List<TimerSegment> list(String logFilePath, Date start, Date end) throws BadLogFileException {
+		final List<TimerSegment> result = new ArrayList<>();
+		final File[] files = new File(segmentsDirectoryPath(logFilePath)).listFiles();
+		if (files == null) {
+			return result;
+		}
+
+		Arrays.sort(files);
+		for (File file : files) {
+			final long monthStart = monthStart(file.getName());
+			if (monthStart == TimerLogRecord.NONE || (end != null && monthStart > end.getTime())
+					|| (start != null && nextMonthStart(monthStart) <= start.getTime())) {
+				continue;
+			}
+
+			final TimerSegment segment = load(file);
+			if ((end == null || segment.minAnchor <= end.getTime())
+					&& (start == null || segment.maxAnchor >= start.getTime())) {
+				result.add(segment);
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Feeds the totals held in the header to the engine, which stand in for the entries as they do for the log.
+	 */
+	public void replay(ReportEngine engine) throws BadLogFileException {
+		try (final DataInputStream input =
+				new DataInputStream(new BufferedInputStream(new FileInputStream(file), COPY_SIZE))) {
+			input.skipBytes(HEADER_SIZE);
+			DetailAggregator.read(input).replay(engine);
+		} catch (IOException e) {
+			throw new BadLogFileException();
+		}
+	}
+
+	/**
+	 * Feeds the entries to the engine, returning false if it stopped before the end of the segment.
+	 */
+	public boolean scan(String logFilePath, ReportEngine engine) throws BadLogFileException {
+		try (final FileInputStream stream = new FileInputStream(file)) {
+			stream.getChannel().position(entries);
+			try (final InputStream input = compressed ? new GZIPInputStream(stream, COPY_SIZE) : stream) {
+				final EntryReader reader = EntryReader.open(input, logFilePath, binary, entries);
+				final TimerLogRecord record = new TimerLogRecord();
+				while (reader.read(record)) {
+					if (!engine.accept(record)) {
+						return false;
+					}
+				}
+			}
+		} catch (IOException e) {
+			throw new BadLogFileException();
+		}
+
+		return true;
+	}
+
+	// Reads the entries of a log or segment in either form, keeping track of the offset reached
+	private static final class EntryReader implements Closeable {
+		private final LineReader lines;
+		private final BinaryLog.Reader records;
+
+		private EntryReader(LineReader lines, BinaryLog.Reader records) {
+			this.lines = lines;
+			this.records = records;
+		}
+
+		private static EntryReader open(InputStream input, String logFilePath, boolean binary, long position)
+				throws IOException {
+			return binary ? new EntryReader(null, new BinaryLog.Reader(input, logFilePath, position))
+					: new EntryReader(new LineReader(input, position), null);
+		}
+
+		private static EntryReader open(String logFilePath, boolean binary) throws IOException {
+			return binary ? new EntryReader(null, BinaryLog.Reader.open(logFilePath, 0))
+					: new EntryReader(new LineReader(new FileInputStream(logFilePath), 0), null);
+		}
+
+		private long getPosition() {
+			return records != null ? records.getPosition() : lines.getPosition();
+		}
+
+		private boolean read(TimerLogRecord record) throws IOException, BadLogFileException {
+			if (records != null) {
+				return records.read(record);
+			}
+
+			String line;
+			while ((line = lines.readLine()) != null) {
+				if (record.parse(line)) {
+					return true;
+				}
+			}
+
+			return false;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (records != null) {
+				records.close();
+			} else {
+				lines.close();
+			}
+		}
+	}
+
+	// The entries of one month while the log is being split
+	private static final class Month {
+		private final long start, end, from;
+		private long minAnchor = Long.MAX_VALUE, maxAnchor = Long.MIN_VALUE, count;
+		private final DetailAggregator totals = new DetailAggregator();
+		private final ReportEngine engine = new ReportEngine(null, null, totals);
+
+		private Month(long anchor, long from) {
+			this.start = monthStart(anchor);
+			this.end = nextMonthStart(anchor);
+			this.from = from;
+		}
+
+		private void add(TimerLogRecord record) throws BadLogFileException {
+			minAnchor = Math.min(minAnchor, record.getAnchor());
+			maxAnchor = Math.max(maxAnchor, record.getAnchor());
+			count++;
+			engine.accept(record);
+		}
+	}
+
+	private static void copy(FileChannel channel, long from, long to, OutputStream output) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(COPY_SIZE);
+		for (long position = from; position < to;) {
+			buffer.clear().limit((int) Math.min(COPY_SIZE, to - position));
+			final int read = channel.read(buffer, position);
+			if (read <= 0) {
+				throw new IOException();
+			}
+
+			output.write(buffer.array(), 0, read);
+			position += read;
+		}
+	}
+
+	// Writes a compressed segment with its entries taken from part of a file, replacing any segment already there
+	private static void write(File file, boolean binary, long minAnchor, long maxAnchor, long count, byte[] totals,
+			FileChannel channel, long from, long to) throws IOException {
+		final File tmpFile = new File(file.getPath() + ".tmp");
+		try {
+			final FileOutputStream stream = new FileOutputStream(tmpFile);
+			try (final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream, COPY_SIZE))) {
+				output.writeLong(MAGIC);
+				output.writeInt(VERSION);
+				output.writeByte((binary ? BINARY : 0) | COMPRESSED);
+				output.writeLong(minAnchor);
+				output.writeLong(maxAnchor);
+				output.writeLong(count);
+				output.writeLong(HEADER_SIZE + totals.length);
+				output.write(totals);
+
+				try (final GZIPOutputStream entries = new GZIPOutputStream(output, COPY_SIZE)) {
+					copy(channel, from, to, entries);
+					entries.finish();
+
+					// The entries may be about to be cut from the log, so they have to be safely in the segment first
+					output.flush();
+					stream.getFD().sync();
+				}
+			}
+
+			Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			tmpFile.delete();
+			throw e;
+		}
+	}
+
+	private static void seal(File directory, boolean binary, FileChannel channel, Month month, long to)
+			throws IOException, BadLogFileException {
+		final File file = new File(directory, nameFormat().format(new Date(month.start)));
+		if (file.exists()) {
+			// Only left behind by a split that didn't get as far as cutting down the log, so it should be the same
+			final TimerSegment segment = load(file);
+			if (segment.minAnchor != month.minAnchor || segment.maxAnchor != month.maxAnchor
+					|| segment.count != month.count) {
+				throw new BadLogFileException();
+			}
+		}
+
+		final ByteArrayOutputStream totals = new ByteArrayOutputStream();
+		month.totals.write(new DataOutputStream(totals));
+
+		write(file, binary, month.minAnchor, month.maxAnchor, month.count, totals.toByteArray(), channel, month.from,
+				to);
+	}
+
+	/**
+	 * Compresses the entries of a segment sealed before segments were compressed.
+	 */
+	public void compress() throws BadLogFileException {
+		if (compressed) {
+			return;
+		}
+
+		try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			final ByteBuffer totals = ByteBuffer.allocate((int) (entries - HEADER_SIZE));
+			while (totals.hasRemaining()) {
+				if (channel.read(totals, HEADER_SIZE + totals.position()) <= 0) {
+					throw new BadLogFileException();
+				}
+			}
+
+			write(file, binary, minAnchor, maxAnchor, count, totals.array(), channel, entries, channel.size());
+		} catch (IOException e) {
+			throw new BadLogFileException();
+		}
+	}
+
+	/**
+	 * Seals the entries of the log anchored before the specified time into segments, one for each month, and replaces
+	 * the log with one holding what's left. The caller should hold the {@link TimerLock} of the log and have it open
+	 * through the channel, which is left on the old log. The checkpoint, indexes and totals of the log are dropped, to
+	 * be rebuilt from what's left. Returns false if there was nothing to split off.
+	 */
+	public static boolean split(String logFilePath, FileChannel channel, long before) throws BadLogFileException {
+		final File directory = new File(segmentsDirectoryPath(logFilePath));
+		final boolean binary = BinaryLog.isBinary(logFilePath);
+
+		final long origin;
+		long keep;
+		try (final EntryReader reader = EntryReader.open(logFilePath, binary)) {
+			origin = keep = reader.getPosition();
+
+			final TimerLogRecord record = new TimerLogRecord();
+			Month month = null;
+			while (reader.read(record)) {
+				if (!record.hasAnchor()) {
+					throw new BadLogFileException();
+				}
+
+				if (record.getAnchor() >= before) {
+					break;
+				}
+
+				if (month == null || record.getAnchor() >= month.end) {
+					if (month != null) {
+						seal(directory, binary, channel, month, keep);
+					}
+
+					month = new Month(record.getAnchor(), keep);
+				}
+
+				month.add(record);
+				keep = reader.getPosition();
+			}
+
+			if (month == null) {
+				return false;
+			}
+
+			seal(directory, binary, channel, month, keep);
+		} catch (IOException e) {
+			throw new BadLogFileException();
+		}
+
+		// What's left, little more than the current month, goes to a new log that then replaces the old one, so the
+		// old one stays whole until the new one is safely written
+		final File logFile = new File(logFilePath);
+		final File tmpFile = new File(logFilePath + ".tmp");
+		try {
+			final FileOutputStream stream = new FileOutputStream(tmpFile);
+			try (final OutputStream output = new BufferedOutputStream(stream, COPY_SIZE)) {
+				copy(channel, 0, origin, output);
+				copy(channel, keep, channel.size(), output);
+				output.flush();
+				stream.getFD().sync();
+			}
+
+			// The checkpoint, indexes and totals only match the old log, so they go before it does
+			new File(TimerCheckpoint.checkpointFilePath(logFilePath)).delete();
+			new File(TimerIndex.indexFilePath(logFilePath)).delete();
+			new File(TimerRollup.rollupFilePath(logFilePath)).delete();
+			new File(TimerTaskIndex.indexFilePath(logFilePath)).delete();
+
+			Files.move(tmpFile.toPath(), logFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			tmpFile.delete();
+			throw new BadLogFileException();
+		}
+
+		try (final FileChannel parent =
+				FileChannel.open(logFile.getAbsoluteFile().getParentFile().toPath(), StandardOpenOption.READ)) {
+			parent.force(true);
+		} catch (IOException e) {
+			// Not every platform can sync a directory, and the rename is already done
+		}
+
+		return true;
+	}
+}
@@ -0,0 +1,132 @@
+package timer;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.security.SecureRandom;
+import java.util.UUID;
+
+/**
+ * Resident process that runs timer commands sent to it over a local socket, so that frequent commands such as start,
+ * pause and status don't pay for starting a JVM each time. The port and a token that clients have to send back are
+ * written to ~/.timer/server, which is removed again when the server exits. Commands are run one at a time.
+ * <p>
+ * A request is the token, the client's current directory, the number of arguments and then the arguments, each on a
+ * line of its own. The response is the output of the command, with each line prefixed by 1 for standard output or 2
+ * for standard error, followed by a line holding "exit" and the exit status, which is 1 if the command failed
+ * unexpectedly.
+ */
+public final class TimerServer {
+	public static final String SERVER_FILE = "server";
+
+	private static final int READ_TIMEOUT = 5000;
+
+	private final File serverFile;
+	private final String token = new UUID(new SecureRandom().nextLong(), new SecureRandom().nextLong()).toString();
+
+	public TimerServer(String statusDirectory) {
+		this.serverFile = Paths.get(statusDirectory, TimerRegistry.REGISTRY_DIRECTORY, SERVER_FILE).toFile();
+	}
+
+	private void publish(int port) throws IOException {
+		serverFile.getParentFile().mkdirs();
+		final File tmpFile = new File(serverFile.getPath() + ".tmp");
+		try (final FileWriter writer = new FileWriter(tmpFile)) {
+			tmpFile.setReadable(false, false);
+			tmpFile.setReadable(true, true);
+			writer.write(port + " " + token + "\n");
+		}
+
+		if (!tmpFile.renameTo(serverFile)) {
+			tmpFile.delete();
+			throw new IOException();
+		}
+
+		Runtime.getRuntime().addShutdownHook(new Thread(serverFile::delete));
+	}
+
+	private static void respond(Writer writer, String prefix, ByteArrayOutputStream output) throws IOException {
+		try (final BufferedReader reader = new BufferedReader(
+				new StringReader(new String(output.toByteArray(), StandardCharsets.UTF_8)))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				writer.write(prefix + line + "\n");
+			}
+		}
+	}
+
+	private void handle(Socket socket) throws IOException {
+		socket.setSoTimeout(READ_TIMEOUT);
+
+		final BufferedReader reader =
+				new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+		if (!token.equals(reader.readLine())) {
+			return;
+		}
+
+		final String currentDirectory = reader.readLine();
+		final String count = reader.readLine();
+		if (currentDirectory == null || count == null) {
+			return;
+		}
+
+		final String[] args;
+		try {
+			args = new String[Integer.parseInt(count)];
+		} catch (NumberFormatException | NegativeArraySizeException e) {
+			return;
+		}
+
+		for (int i = 0; i < args.length; i++) {
+			if ((args[i] = reader.readLine()) == null) {
+				return;
+			}
+		}
+
+		final ByteArrayOutputStream out = new ByteArrayOutputStream(), err = new ByteArrayOutputStream();
+		int status;
+		try (final PrintStream outStream = new PrintStream(out, true, StandardCharsets.UTF_8.name());
+				final PrintStream errStream = new PrintStream(err, true, StandardCharsets.UTF_8.name())) {
+			try {
+				status = Main.run(args, currentDirectory, new ByteArrayInputStream(new byte[0]), outStream, errStream);
+			} catch (RuntimeException e) {
+				// The client has to hear that the command failed, just as if it had been run directly
+				e.printStackTrace(errStream);
+				status = 1;
+			}
+		}
+
+		final Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+		respond(writer, "1 ", out);
+		respond(writer, "2 ", err);
+		writer.write("exit " + status + "\n");
+		writer.flush();
+	}
+
+	public void serve() throws IOException {
+		try (final ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+			publish(serverSocket.getLocalPort());
+
+			while (true) {
+				try (final Socket socket = serverSocket.accept()) {
+					handle(socket);
+				} catch (IOException | RuntimeException e) {
+					// One bad request shouldn't take the server down
+				}
+			}
+		}
+	}
+}
@@ -7,11 +7,13 @@ import java.util.Date;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import timer.exception.BadStatusFileException;
+import timer.lib.Exported;
+import timer.lib.Exporter;
 import timer.lib.Format;
 import timer.lib.Formatted;
 
 @AllArgsConstructor
-public final class TimerStatus implements Formatted {
+public final class TimerStatus implements Formatted, Exported {
 	private static final String LINE_FORMAT = "%s,%s,%s,%s,%s,%s,%s\n";
 	private static final String STATUS_FORMAT = "%s - %s";
 	private static final String NULL = "null";
@@ -47,6 +49,17 @@ public final class TimerStatus implements Formatted {
 				Format.formatInterval((new Date().getTime() - start.getTime()) / 1000 + workDone));
 	}
 
+	@Override
+	public void export(Exporter exporter) {
+		exporter.row("status");
+		exporter.field("status", status.name());
+		exporter.field("project", project);
+		exporter.field("directory", directory);
+		exporter.field("anchor", anchor);
+		exporter.field("seconds", (new Date().getTime() - start.getTime()) / 1000 + workDone);
+		exporter.end();
+	}
+
 	public static TimerStatus parse(String statusLine) throws BadStatusFileException {
 		if (statusLine != null && !statusLine.toLowerCase().equals("null") && statusLine.trim().length() > 0) {
 			final String[] parts = statusLine.split(",");
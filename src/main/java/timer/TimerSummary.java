@@ -7,11 +7,13 @@ import java.util.Date;
 
 import lombok.AllArgsConstructor;
 import lombok.Getter;
+import timer.lib.Exported;
+import timer.lib.Exporter;
 import timer.lib.Format;
 import timer.lib.Formatted;
 
 @AllArgsConstructor
-public class TimerSummary implements Formatted {
+public class TimerSummary implements Formatted, Exported {
 	private static final String DATE_FORMAT = "E dd MMM yyyy (hh:mm)";
 	private static final String LINE_FORMAT = "%s:   \u001B[32m%s\u001B[0m (%s)";
 
@@ -28,4 +30,12 @@ public class TimerSummary implements Formatted {
 
 		return String.format(LINE_FORMAT, dateFormat.format(date), Format.formatInterval(time), hours.toString());
 	}
+
+	@Override
+	public void export(Exporter exporter) {
+		exporter.row("summary");
+		exporter.field("anchor", date);
+		exporter.field("seconds", time);
+		exporter.end();
+	}
 }
@@ -0,0 +1,776 @@
+package timer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import lombok.Getter;
+import timer.exception.BadLogFileException;
+import timer.lib.LineReader;
+import timer.report.Aggregator;
+import timer.report.ReportEngine;
+import timer.report.TaskDictionary;
+
+/**
+ * Inverted index of the tasks of a log, from each task to the offsets of its finished entries in the log and to the
+ * months of the segments it has entries in, so that reports on a few tasks only read the entries and segments they
+ * need. Each name is stored once, with its entries and months in chains of blocks running back from the latest one,
+ * so finding the tasks tests each name once and then only reads the blocks of the ones that match.
+ * <p>
+ * The index is only ever appended to. Each append adds the names new to the index, a block for each task it adds
+ * entries to, and a directory of where those tasks' chains now start, followed by a trailer giving how much of the log
+ * is covered, with a checksum as the totals keep to spot a log that has changed underneath it. A directory only holds
+ * the tasks that changed and refers back to the one before, until the chain of them would be longer than two full
+ * directories, when a full one is written instead. The trailer also holds the latest task, so that appending to the
+ * task appended to last, which is the usual case, doesn't read the directory at all.
+ */
+public final class TimerTaskIndex {
+	public static final String TASK_INDEX_FILE = ".timer-task-index";
+
+	private static final long MAGIC = 0x54494d4552544958l;
+	private static final int VERSION = 3;
+	private static final int HEADER_SIZE = 8 + 4;
+	private static final int NAME = 0;
+	private static final int ENTRIES = 1;
+	private static final int MONTHS = 2;
+	private static final int DIRECTORY = 3;
+	private static final int END = 4;
+	private static final int NAME_SIZE = 1 + 4;
+	private static final int BLOCK_SIZE = 1 + 8 + 4;
+	private static final int MAX_BLOCK_LENGTH = 8 * 1024;
+	private static final int DIRECTORY_SIZE = 1 + 8 + 3 * 4;
+	private static final int DIRECTORY_ENTRY_SIZE = 3 * 8;
+	private static final int END_SIZE = 1 + 8 * 8;
+	private static final int WINDOW_SIZE = 16 * 1024;
+	private static final long NONE = -1;
+
+	private final Predicate<String> filter;
+
+	// Offsets of the entries of the tasks the filter lets through in the log, in order, and the months of the segments
+	// they're in
+	private final Longs offsets = new Longs();
+	private final Set<Long> months = new HashSet<>();
+
+	private End end;
+
+	// How much of the index was read to find the tasks
+	@Getter
+	private long read;
+
+	private TimerTaskIndex(Predicate<String> filter) {
+		this.filter = filter;
+	}
+
+	public static String indexFilePath(String logFilePath) {
+		return new File(new File(logFilePath).getParentFile(), TASK_INDEX_FILE).getPath();
+	}
+
+	/**
+	 * The task as reports name it.
+	 */
+	public static String name(TimerLogRecord record) {
+		return record.isTaskBlank() ? TaskDictionary.NO_TASK : record.getTask();
+	}
+
+	/**
+	 * The task of an entry about to be written as reports will name it once it's read back.
+	 */
+	public static String name(String task) {
+		return task == null || task.equals("") || task.equalsIgnoreCase("null") ? TaskDictionary.NO_TASK : task;
+	}
+
+	private static final class Longs {
+		private long[] values = new long[16];
+		private int size;
+
+		private void add(long value) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+
+			values[size++] = value;
+		}
+	}
+
+	// A task, by where it's named in the index, with where the chains of its entries and months start
+	private static final class Task {
+		private final long name;
+		private long entries = NONE;
+		private long months = NONE;
+
+		private Task(long name) {
+			this.name = name;
+		}
+	}
+
+	// The trailer of an append
+	private static final class End {
+		private long covered;
+		private long checksum;
+		private long length;
+		private long modified;
+		private long directory = NONE;
+		private long latest = NONE;
+		private long latestEntries = NONE;
+		private long latestMonths = NONE;
+
+		// The trailer the index ends with, or null if the index is damaged or of another version
+		private static End read(Source source) throws IOException {
+			final long size = source.size;
+			final ByteBuffer header = source.read(0l, HEADER_SIZE);
+			if (size < HEADER_SIZE + END_SIZE || header == null || header.getLong() != MAGIC
+					|| header.getInt() != VERSION) {
+				return null;
+			}
+
+			final ByteBuffer buffer = source.read(size - END_SIZE, END_SIZE);
+			if (buffer == null || buffer.get() != END) {
+				return null;
+			}
+
+			final End result = new End();
+			result.covered = buffer.getLong();
+			result.checksum = buffer.getLong();
+			result.length = buffer.getLong();
+			result.modified = buffer.getLong();
+			result.directory = buffer.getLong();
+			result.latest = buffer.getLong();
+			result.latestEntries = buffer.getLong();
+			result.latestMonths = buffer.getLong();
+
+			return result.directory < size && result.latest < size ? result : null;
+		}
+
+		private void write(DataOutputStream output) throws IOException {
+			output.writeByte(END);
+			output.writeLong(covered);
+			output.writeLong(checksum);
+			output.writeLong(length);
+			output.writeLong(modified);
+			output.writeLong(directory);
+			output.writeLong(latest);
+			output.writeLong(latestEntries);
+			output.writeLong(latestMonths);
+		}
+	}
+
+	// The index as it's read through a window onto it, so that the small records near each other cost one read between
+	// them, keeping count of how much of it is read
+	private static final class Source {
+		private final FileChannel channel;
+		private final long size;
+		private ByteBuffer window = ByteBuffer.allocate(0);
+		private long windowStart;
+		private long read;
+
+		private Source(FileChannel channel) throws IOException {
+			this.channel = channel;
+			this.size = channel.size();
+		}
+
+		// The bytes at the position, or null if the index doesn't go that far
+		private ByteBuffer read(long position, long length) throws IOException {
+			if (position < 0 || length < 0 || length > Integer.MAX_VALUE || position > size - length) {
+				return null;
+			}
+
+			if (length > WINDOW_SIZE / 2) {
+				return fill(position, (int) length);
+			}
+
+			if (position < windowStart || position + length > windowStart + window.limit()) {
+				// Around the position, as chains are read backwards and names forwards
+				windowStart = Math.max(0l, position - WINDOW_SIZE / 2);
+				window = fill(windowStart, (int) Math.min(WINDOW_SIZE, size - windowStart));
+				if (window == null) {
+					window = ByteBuffer.allocate(0);
+					return null;
+				}
+			}
+
+			final int from = (int) (position - windowStart);
+			return ByteBuffer.wrap(Arrays.copyOfRange(window.array(), from, from + (int) length));
+		}
+
+		private ByteBuffer fill(long position, int length) throws IOException {
+			final ByteBuffer result = ByteBuffer.allocate(length);
+			while (result.hasRemaining() && channel.read(result, position + result.position()) > 0) {
+				// Read all of it
+			}
+			result.flip();
+			read += result.remaining();
+
+			return result.remaining() == length ? result : null;
+		}
+	}
+
+	// The tasks in the directory at the position and the ones it refers back to, by where they're named, with the
+	// latest directory's chains taking precedence, or null if the index is damaged
+	private static Map<Long, Task> directory(Source source, long position) throws IOException {
+		final Map<Long, Task> result = new HashMap<>();
+		while (position != NONE) {
+			final ByteBuffer header = source.read(position, DIRECTORY_SIZE);
+			if (header == null || header.get() != DIRECTORY) {
+				return null;
+			}
+
+			final long previous = header.getLong();
+			header.position(header.position() + 2 * 4);
+			final int count = header.getInt();
+			final ByteBuffer entries = source.read(position + DIRECTORY_SIZE, (long) count * DIRECTORY_ENTRY_SIZE);
+			if (entries == null || previous >= position) {
+				return null;
+			}
+
+			for (int i = 0; i < count; i++) {
+				final Task task = new Task(entries.getLong());
+				task.entries = entries.getLong();
+				task.months = entries.getLong();
+				result.putIfAbsent(task.name, task);
+			}
+
+			position = previous;
+		}
+
+		return result;
+	}
+
+	// The tasks by name, reading the names in the order they're in the index, or null if the index is damaged
+	private static Map<String, Task> names(Source source, Collection<Task> tasks) throws IOException {
+		final List<Task> ordered = new ArrayList<>(tasks);
+		ordered.sort((a, b) -> Long.compare(a.name, b.name));
+
+		final Map<String, Task> result = new HashMap<>();
+		for (Task task : ordered) {
+			final String name = readName(source, task.name);
+			if (name == null || result.put(name, task) != null) {
+				return null;
+			}
+		}
+
+		return result;
+	}
+
+	// The name of the task named at the position, or null if there's no task there
+	private static String readName(Source source, long position) throws IOException {
+		final ByteBuffer header = source.read(position, NAME_SIZE);
+		if (header == null || header.get() != NAME) {
+			return null;
+		}
+
+		final ByteBuffer name = source.read(position + NAME_SIZE, header.getInt());
+		return name != null ? new String(name.array(), StandardCharsets.UTF_8) : null;
+	}
+
+	// Adds the values in the chain of blocks from the block at the position back, returning false if the index is
+	// damaged
+	private static boolean chain(Source source, long position, int type, Longs values) throws IOException {
+		while (position != NONE) {
+			final ByteBuffer header = source.read(position, BLOCK_SIZE);
+			if (header == null || header.get() != type) {
+				return false;
+			}
+
+			final long previous = header.getLong();
+			final ByteBuffer block = source.read(position + BLOCK_SIZE, header.getInt() * 8l);
+			if (block == null || previous >= position) {
+				return false;
+			}
+
+			while (block.hasRemaining()) {
+				values.add(block.getLong());
+			}
+
+			position = previous;
+		}
+
+		return true;
+	}
+
+	// Records to be appended to the index, which start at the specified offset in it
+	private static final class Appender {
+		private final long base;
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		private final DataOutputStream output = new DataOutputStream(bytes);
+
+		// The tasks by name, either all of them or just the latest one when only it is appended to
+		private final Map<String, Task> tasks;
+		private final boolean complete;
+		private Task latest;
+
+		// The latest directory, with the number of tasks and how many directory entries there are back to the last
+		// full directory
+		private long directory;
+		private int names;
+		private int chained;
+
+		// What's been added for each task, to be written in a block each, and the tasks the directory has to update
+		private final Map<Task, Longs> entries = new LinkedHashMap<>();
+		private final Map<Task, Longs> months = new LinkedHashMap<>();
+		private final Set<Task> changed = new LinkedHashSet<>();
+
+		// The checksum of the log up to where the index covered it before these records
+		private final long checked;
+		private final long checksum;
+
+		private Appender(long base, Map<String, Task> tasks, boolean complete, Task latest, long directory, int names,
+				int chained, long checked, long checksum) {
+			this.base = base;
+			this.tasks = tasks;
+			this.complete = complete;
+			this.latest = latest;
+			this.directory = directory;
+			this.names = names;
+			this.chained = chained;
+			this.checked = checked;
+			this.checksum = checksum;
+		}
+
+		private static Appender create() throws IOException {
+			final Appender appender = new Appender(0l, new HashMap<>(), true, null, NONE, 0, 0, 0l, 0l);
+			appender.output.writeLong(MAGIC);
+			appender.output.writeInt(VERSION);
+
+			return appender;
+		}
+
+		/**
+		 * Carries on from where the index ends, reading the directory unless all the tasks given are the latest one,
+		 * or for null that any task may be appended to. Returns null if the index is damaged.
+		 */
+		private static Appender open(Source source, End end, String[] added) throws IOException {
+			int names = 0, chained = 0;
+			if (end.directory != NONE) {
+				final ByteBuffer header = source.read(end.directory, DIRECTORY_SIZE);
+				if (header == null || header.get() != DIRECTORY) {
+					return null;
+				}
+
+				header.getLong();
+				names = header.getInt();
+				chained = header.getInt();
+			}
+
+			final String latestName = end.latest != NONE ? readName(source, end.latest) : null;
+			if (end.latest != NONE && latestName == null) {
+				return null;
+			}
+
+			boolean latestOnly = added != null && chained < 2 * names;
+			for (int i = 0; latestOnly && i < added.length; i++) {
+				latestOnly = added[i] == null || added[i].equals(latestName);
+			}
+
+			final Map<String, Task> tasks;
+			if (latestOnly) {
+				tasks = new HashMap<>();
+				if (latestName != null) {
+					final Task latest = new Task(end.latest);
+					latest.entries = end.latestEntries;
+					latest.months = end.latestMonths;
+					tasks.put(latestName, latest);
+				}
+			} else {
+				final Map<Long, Task> directory = directory(source, end.directory);
+				tasks = directory != null ? names(source, directory.values()) : null;
+				if (tasks == null || tasks.size() != names) {
+					return null;
+				}
+			}
+
+			return new Appender(source.size, tasks, !latestOnly, latestName != null ? tasks.get(latestName) : null,
+					end.directory, names, chained, end.covered, end.checksum);
+		}
+
+		private Task task(String name) throws IOException {
+			Task task = tasks.get(name);
+			if (task == null) {
+				// Only ever new when all the tasks are known
+				task = new Task(base + output.size());
+				tasks.put(name, task);
+				names++;
+				changed.add(task);
+
+				final byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+				output.writeByte(NAME);
+				output.writeInt(bytes.length);
+				output.write(bytes);
+			}
+
+			return task;
+		}
+
+		private void entry(String name, long offset) throws IOException {
+			latest = task(name);
+			entries.computeIfAbsent(latest, task -> new Longs()).add(offset);
+		}
+
+		private void month(String name, long month) throws IOException {
+			months.computeIfAbsent(task(name), task -> new Longs()).add(month);
+		}
+
+		// Writes the values in blocks chained on from the block at the position, returning where the last one is
+		private long blocks(int type, long position, Longs values) throws IOException {
+			for (int from = 0; from < values.size; from += MAX_BLOCK_LENGTH) {
+				final int count = Math.min(MAX_BLOCK_LENGTH, values.size - from);
+				final long block = base + output.size();
+				output.writeByte(type);
+				output.writeLong(position);
+				output.writeInt(count);
+				for (int i = from; i < from + count; i++) {
+					output.writeLong(values.values[i]);
+				}
+
+				position = block;
+			}
+
+			return position;
+		}
+
+		private void writeDirectory() throws IOException {
+			for (Map.Entry<Task, Longs> entry : entries.entrySet()) {
+				entry.getKey().entries = blocks(ENTRIES, entry.getKey().entries, entry.getValue());
+				changed.add(entry.getKey());
+			}
+			for (Map.Entry<Task, Longs> entry : months.entrySet()) {
+				entry.getKey().months = blocks(MONTHS, entry.getKey().months, entry.getValue());
+				changed.add(entry.getKey());
+			}
+
+			if (changed.isEmpty()) {
+				return;
+			}
+
+			final boolean full = complete && (directory == NONE || chained + changed.size() > 2 * names);
+			final Collection<Task> written = full ? tasks.values() : changed;
+			final long position = base + output.size();
+			output.writeByte(DIRECTORY);
+			output.writeLong(full ? NONE : directory);
+			output.writeInt(names);
+			output.writeInt(full ? written.size() : chained + written.size());
+			output.writeInt(written.size());
+			for (Task task : written) {
+				output.writeLong(task.name);
+				output.writeLong(task.entries);
+				output.writeLong(task.months);
+			}
+
+			directory = position;
+			chained = full ? written.size() : chained + written.size();
+		}
+
+		private void end(String logFilePath, long covered) throws IOException {
+			writeDirectory();
+
+			// Taken before the checksum, so that anything written meanwhile has the log checked again next time
+			final File logFile = new File(logFilePath);
+			final End end = new End();
+			end.length = logFile.length();
+			end.modified = logFile.lastModified();
+			end.covered = covered;
+			end.checksum = TimerRollup.checksum(logFilePath, checked, covered, checksum);
+			end.directory = directory;
+			if (latest != null) {
+				end.latest = latest.name;
+				end.latestEntries = latest.entries;
+				end.latestMonths = latest.months;
+			}
+
+			end.write(output);
+		}
+
+		private void write(FileChannel channel) throws IOException {
+			final ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+			for (long position = base; buffer.hasRemaining();) {
+				position += channel.write(buffer, position);
+			}
+		}
+	}
+
+	// Collects the tasks a segment's totals are for
+	private static final class TaskCollector implements Aggregator<String> {
+		private final Set<String> tasks = new LinkedHashSet<>();
+
+		@Override
+		public void add(TimerLogRecord record) {
+			tasks.add(name(record));
+		}
+
+		@Override
+		public List<String> results() {
+			return new ArrayList<>(tasks);
+		}
+	}
+
+	// Adds the finished entries of the log from the offset onwards, returning the offset just past the last one read
+	private static long index(String logFilePath, long from, Appender appender)
+			throws IOException, BadLogFileException {
+		final TimerLogRecord record = new TimerLogRecord();
+		if (BinaryLog.isBinary(logFilePath)) {
+			try (final BinaryLog.Reader reader = BinaryLog.Reader.open(logFilePath, from)) {
+				long position = reader.getPosition();
+				while (reader.read(record)) {
+					if (record.hasStart() && record.hasEnd()) {
+						appender.entry(name(record), position);
+					}
+
+					position = reader.getPosition();
+				}
+
+				return position;
+			}
+		}
+
+		final FileInputStream input = new FileInputStream(logFilePath);
+		input.getChannel().position(from);
+		try (final LineReader reader = new LineReader(input, from)) {
+			long lineOffset = reader.getPosition();
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (record.parse(line) && record.hasStart() && record.hasEnd()) {
+					appender.entry(name(record), lineOffset);
+				}
+
+				lineOffset = reader.getPosition();
+			}
+
+			return lineOffset;
+		}
+	}
+
+	private static void rebuild(String logFilePath, FileChannel channel) throws IOException, BadLogFileException {
+		final Appender appender = Appender.create();
+		for (TimerSegment segment : TimerSegment.list(logFilePath, null, null)) {
+			final TaskCollector collector = new TaskCollector();
+			segment.replay(new ReportEngine(null, null, collector));
+
+			final long month = TimerSegment.monthStart(segment.getMinAnchor());
+			for (String task : collector.results()) {
+				appender.month(task, month);
+			}
+		}
+
+		appender.end(logFilePath, new File(logFilePath).exists() ? index(logFilePath, 0l, appender) : 0l);
+
+		channel.truncate(0);
+		appender.write(channel);
+	}
+
+	/**
+	 * Builds the index for the log from scratch, from the totals of its segments and the entries of the log. The
+	 * caller should hold a lock on the log.
+	 */
+	public static void rebuild(String logFilePath) throws BadLogFileException {
+		try (final FileChannel channel = open(logFilePath); final FileLock lock = channel.lock()) {
+			rebuild(logFilePath, channel);
+		} catch (IOException e) {
+			throw new BadLogFileException();
+		}
+	}
+
+	private static FileChannel open(String logFilePath) throws IOException {
+		return FileChannel.open(Paths.get(indexFilePath(logFilePath)), StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+	}
+
+	/**
+	 * Adds the entries just written to the log, which the caller should hold a lock on, given by the offsets they were
+	 * written at and their tasks as named by {@link #name(String)}, or null for the ones that aren't finished. The log
+	 * held the specified number of bytes and had the specified modification time before they were written, and holds
+	 * the covered number of bytes after. The index is rebuilt if it doesn't end where the log did.
+	 */
+	public static void record(String logFilePath, long offset, long modified, String[] tasks, long[] offsets,
+			long covered) throws BadLogFileException {
+		try (final FileChannel channel = open(logFilePath); final FileLock lock = channel.lock()) {
+			// The log as it was before the entries were written has to be the one the index was last written for
+			final Source source = new Source(channel);
+			final End end = End.read(source);
+			final Appender appender = end != null && end.covered == offset
+					&& (end.length == offset && end.modified == modified
+							|| TimerRollup.matches(logFilePath, offset, end.checksum, end.length, end.modified))
+									? Appender.open(source, end, tasks) : null;
+			if (appender == null) {
+				rebuild(logFilePath, channel);
+				return;
+			}
+
+			for (int i = 0; i < tasks.length; i++) {
+				if (tasks[i] != null) {
+					appender.entry(tasks[i], offsets[i]);
+				}
+			}
+
+			appender.end(logFilePath, covered);
+			appender.write(channel);
+		} catch (IOException e) {
+			throw new BadLogFileException();
+		}
+	}
+
+	// Finds the tasks the filter lets through and reads their chains, returning false if the index is damaged or of
+	// another version
+	private boolean load(FileChannel channel) throws IOException {
+		final Source source = new Source(channel);
+		end = End.read(source);
+		final Map<Long, Task> directory = end != null ? directory(source, end.directory) : null;
+		final Map<String, Task> tasks = directory != null ? names(source, directory.values()) : null;
+		if (tasks == null) {
+			return false;
+		}
+
+		final Longs found = new Longs();
+		for (Map.Entry<String, Task> task : tasks.entrySet()) {
+			if (filter.test(task.getKey())) {
+				if (!chain(source, task.getValue().entries, ENTRIES, offsets)
+						|| !chain(source, task.getValue().months, MONTHS, found)) {
+					return false;
+				}
+			}
+		}
+
+		for (int i = 0; i < found.size; i++) {
+			months.add(found.values[i]);
+		}
+
+		// The blocks run back from the latest, and the tasks come in no particular order
+		Arrays.sort(offsets.values, 0, offsets.size);
+
+		read = source.read;
+		return true;
+	}
+
+	/**
+	 * Finds the entries and segments of the tasks the filter lets through, after bringing the index up to date with
+	 * anything written to the log since, or rebuilding it if it's missing, damaged or no longer matches the log.
+	 * Returns null if there's no index and one can't be written, in which case the whole log has to be read.
+	 */
+	public static TimerTaskIndex find(String logFilePath, Predicate<String> filter) throws BadLogFileException {
+		final File logFile = new File(logFilePath);
+		try (final FileChannel channel = open(logFilePath); final FileLock lock = channel.lock()) {
+			final Source source = new Source(channel);
+			final End end = End.read(source);
+			if (end == null
+					|| !TimerRollup.matches(logFilePath, end.covered, end.checksum, end.length, end.modified)) {
+				rebuild(logFilePath, channel);
+			} else if (end.covered < logFile.length() || end.length != logFile.length()
+					|| end.modified != logFile.lastModified()) {
+				// Written to even if nothing's been added, so the log isn't checked through again next time
+				final Appender appender = Appender.open(source, end, null);
+				if (appender != null) {
+					appender.end(logFilePath, index(logFilePath, end.covered, appender));
+					appender.write(channel);
+				} else {
+					rebuild(logFilePath, channel);
+				}
+			}
+
+			TimerTaskIndex index = new TimerTaskIndex(filter);
+			if (!index.load(channel)) {
+				// Damaged somewhere other than the trailer
+				rebuild(logFilePath, channel);
+				index = new TimerTaskIndex(filter);
+				if (!index.load(channel)) {
+					return null;
+				}
+			}
+
+			return index;
+		} catch (IOException e) {
+			// Most likely the directory can't be written to
+			return null;
+		}
+	}
+
+	/**
+	 * Whether any of the tasks have entries in the segment for the month.
+	 */
+	public boolean hasMonth(long month) {
+		return months.contains(month);
+	}
+
+	/**
+	 * Feeds the entries of the tasks from the offset in a text log onwards to the engine, returning the number of bytes
+	 * read.
+	 */
+	public long scan(String logFilePath, long from, ReportEngine engine) throws BadLogFileException {
+		final long[] offsets = this.offsets.values;
+		final int size = this.offsets.size;
+		int first = 0;
+		while (first < size && offsets[first] < from) {
+			first++;
+		}
+
+		// Read the lines through a window onto the log, which only moves once a line falls outside it
+		try (final FileChannel channel = FileChannel.open(Paths.get(logFilePath), StandardOpenOption.READ)) {
+			ByteBuffer window = ByteBuffer.allocate(WINDOW_SIZE);
+			window.limit(0);
+			long windowStart = 0, result = 0;
+
+			final TimerLogRecord record = new TimerLogRecord();
+			for (int i = first; i < size; i++) {
+				int start = (int) Math.min(Math.max(offsets[i] - windowStart, -1), Integer.MAX_VALUE);
+				int end = start >= 0 && start < window.limit() ? lineEnd(window, start) : -1;
+				while (end < 0) {
+					if (start == 0 && window.limit() == window.capacity()) {
+						// A line longer than the window
+						window = ByteBuffer.allocate(window.capacity() * 2);
+					}
+
+					window.clear();
+					while (window.hasRemaining() && channel.read(window, offsets[i] + window.position()) > 0) {
+						// Fill the window
+					}
+					window.flip();
+					result += window.limit();
+					windowStart = offsets[i];
+					start = 0;
+
+					end = lineEnd(window, 0);
+					if (end < 0 && window.limit() < window.capacity()) {
+						// The line hasn't been finished
+						return result;
+					}
+				}
+
+				if (record.parse(new String(window.array(), start, end - start, StandardCharsets.UTF_8))
+						&& !engine.accept(record)) {
+					break;
+				}
+			}
+
+			return result;
+		} catch (IOException e) {
+			throw new BadLogFileException();
+		}
+	}
+
+	private static int lineEnd(ByteBuffer window, int from) {
+		final byte[] bytes = window.array();
+		for (int i = from; i < window.limit(); i++) {
+			if (bytes[i] == '\n') {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+}
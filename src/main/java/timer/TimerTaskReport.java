@@ -2,11 +2,13 @@ package timer;
 
 import lombok.AllArgsConstructor;
 import lombok.Getter;
+import timer.lib.Exported;
+import timer.lib.Exporter;
 import timer.lib.Format;
 import timer.lib.Formatted;
 
 @AllArgsConstructor
-public class TimerTaskReport implements Formatted {
+public class TimerTaskReport implements Formatted, Exported {
 	private static final int MAX_TASK_LENGTH = 90;
 	private static final String LINE_FORMAT = "%s\t\u001B[32m%s\u001B[0m";
 
@@ -26,4 +28,12 @@ public class TimerTaskReport implements Formatted {
 
 		return builder.toString();
 	}
+
+	@Override
+	public void export(Exporter exporter) {
+		exporter.row("task");
+		exporter.field("task", task);
+		exporter.field("seconds", timeSpent);
+		exporter.end();
+	}
 }
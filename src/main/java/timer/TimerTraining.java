@@ -0,0 +1,40 @@
+package timer;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * Runs the common commands against a scratch project, so that a JVM started with -XX:ArchiveClassesAtExit records
+ * the classes they use in a class data sharing archive. Used by the startup build profile.
+ */
+public final class TimerTraining {
+	private static final String[][] COMMANDS = { { "-g", "training" }, { "-c" }, { "-t" }, { "-p" }, { "-i" },
+			{ "-c" }, { "-t" }, { "-s" }, { "-r" }, { "-d" }, { "-a" }, { "-b" }, { "-h" } };
+
+	private TimerTraining() {}
+
+	public static void main(String[] args) {
+		if (args.length != 1) {
+			System.err.println("usage: TimerTraining <scratch directory>");
+			System.exit(1);
+		}
+
+		final File directory = new File(args[0]);
+		final File project = new File(directory, "project");
+		project.mkdirs();
+
+		// Keep the training run away from the real status file and registry
+		System.setProperty("user.home", directory.getAbsolutePath());
+
+		final PrintStream discard = new PrintStream(new OutputStream() {
+			@Override
+			public void write(int b) {}
+		});
+
+		for (String[] command : COMMANDS) {
+			Main.run(command, project.getAbsolutePath(), new ByteArrayInputStream(new byte[0]), discard, discard);
+		}
+	}
+}
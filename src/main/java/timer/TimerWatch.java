@@ -0,0 +1,96 @@
+package timer;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+import timer.exception.BadStatusFileException;
+
+/**
+ * Long running alternative to running status over and over from a status bar. The status file is only read again when
+ * it changes, which the file system says rather than it being polled, and the elapsed time is worked out in process
+ * on each tick. A line is printed whenever what status would print changes, an empty one when there's no status, and
+ * watching stops once the output can no longer be written to.
+ */
+public final class TimerWatch {
+	private final Timer timer;
+	private final long tick;
+
+	public TimerWatch(Timer timer, long tick) {
+		this.timer = timer;
+		this.tick = tick;
+	}
+
+	private static boolean isStatusChange(WatchKey key) {
+		boolean result = false;
+		for (WatchEvent<?> event : key.pollEvents()) {
+			if (event.kind() == StandardWatchEventKinds.OVERFLOW
+					|| Paths.get(Timer.STATUS_FILE).equals(event.context())) {
+				result = true;
+			}
+		}
+
+		return result;
+	}
+
+	public void watch(PrintStream out) throws IOException, BadStatusFileException {
+		final Path statusDirectory = Paths.get(timer.getStatusDirectory());
+		try (final WatchService watcher = FileSystems.getDefault().newWatchService()) {
+			// The status is replaced rather than written over, so it shows up as created as often as modified
+			statusDirectory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+					StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+
+			TimerStatus status = timer.status();
+			String line = null;
+			long next = System.currentTimeMillis();
+			while (true) {
+				final String formatted = status != null ? status.format() : "";
+				if (!formatted.equals(line)) {
+					line = formatted;
+					out.println(line);
+					if (out.checkError()) {
+						return;
+					}
+				}
+
+				next += tick;
+				long wait;
+				while ((wait = next - System.currentTimeMillis()) > 0) {
+					final WatchKey key;
+					try {
+						key = watcher.poll(wait, TimeUnit.MILLISECONDS);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+
+					if (key == null) {
+						break;
+					}
+
+					final boolean changed = isStatusChange(key);
+					if (!key.reset()) {
+						// The status directory has gone
+						return;
+					}
+
+					if (changed) {
+						status = timer.status();
+						next = System.currentTimeMillis();
+						break;
+					}
+				}
+
+				// Don't try to catch up on ticks missed while suspended
+				next = Math.max(next, System.currentTimeMillis() - tick);
+			}
+		}
+	}
+}
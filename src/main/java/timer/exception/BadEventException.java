@@ -0,0 +1,19 @@
+package timer.exception;
+
+import lombok.Getter;
+
+/**
+ * An imported event that can't be read, or that the timer can't act on at that point. The cause, if there is one, is
+ * the exception the timer itself gave.
+ */
+public final class BadEventException extends Exception {
+	private static final long serialVersionUID = -3150489128412771625L;
+
+	@Getter
+	private final long line;
+
+	public BadEventException(long line, Exception cause) {
+		super(cause);
+		this.line = line;
+	}
+}
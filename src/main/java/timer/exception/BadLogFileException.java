@@ -2,4 +2,11 @@ package timer.exception;
 
 public final class BadLogFileException extends Exception {
 	private static final long serialVersionUID = 1665605200137230581L;
+
+	public BadLogFileException() {
+	}
+
+	public BadLogFileException(Throwable cause) {
+		super(cause);
+	}
 }
@@ -0,0 +1,34 @@
+package timer.lib;
+
+/**
+ * CRC-32 as {@link java.util.zip.CRC32} computes it, but carried on from an earlier value, so that the checksum of a
+ * file that's only appended to can be brought up to date by reading just what was appended.
+ */
+public final class Crc32 {
+	private static final int[] TABLE = new int[256];
+
+	static {
+		for (int i = 0; i < TABLE.length; i++) {
+			int value = i;
+			for (int bit = 0; bit < 8; bit++) {
+				value = (value & 1) != 0 ? (value >>> 1) ^ 0xEDB88320 : value >>> 1;
+			}
+			TABLE[i] = value;
+		}
+	}
+
+	private Crc32() {}
+
+	/**
+	 * The checksum of the bytes the specified checksum was taken of followed by the given bytes. The checksum of no
+	 * bytes at all is 0.
+	 */
+	public static long update(long checksum, byte[] bytes, int offset, int length) {
+		int value = ~(int) checksum;
+		for (int i = offset; i < offset + length; i++) {
+			value = TABLE[(value ^ bytes[i]) & 0xff] ^ (value >>> 8);
+		}
+
+		return ~value & 0xffffffffl;
+	}
+}
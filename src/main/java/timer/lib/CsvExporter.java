@@ -0,0 +1,105 @@
+package timer.lib;
+
+import java.io.PrintWriter;
+
+/**
+ * Writes rows as RFC 4180 comma separated values, with a header line each time the report changes, so that the
+ * sections of a combined report can be told apart. The header can only be known once a report's first row is
+ * complete, so that row is held back until then.
+ */
+public final class CsvExporter extends Exporter {
+	private String report;
+
+	// The header and first row of a new report, while it's being built
+	private StringBuilder header;
+	private StringBuilder first;
+
+	public CsvExporter(PrintWriter writer) {
+		super(writer);
+	}
+
+	private static boolean needsQuotes(String value) {
+		for (int i = 0; i < value.length(); i++) {
+			final char c = value.charAt(i);
+			if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private void value(String value) {
+		if (first != null) {
+			first.append(',');
+		} else {
+			writer.write(',');
+		}
+
+		if (value == null) {
+			return;
+		}
+
+		if (!needsQuotes(value)) {
+			if (first != null) {
+				first.append(value);
+			} else {
+				writer.write(value);
+			}
+			return;
+		}
+
+		final String quoted = '"' + value.replace("\"", "\"\"") + '"';
+		if (first != null) {
+			first.append(quoted);
+		} else {
+			writer.write(quoted);
+		}
+	}
+
+	@Override
+	public void row(String report) {
+		if (!report.equals(this.report)) {
+			this.report = report;
+			header = new StringBuilder("report");
+			first = new StringBuilder(report);
+		} else {
+			writer.write(report);
+		}
+	}
+
+	@Override
+	public void field(String name, String value) {
+		if (header != null) {
+			header.append(',').append(name);
+		}
+		value(value);
+	}
+
+	@Override
+	public void field(String name, long value) {
+		if (header != null) {
+			header.append(',').append(name);
+		}
+
+		if (first != null) {
+			first.append(',').append(value);
+		} else {
+			writer.write(',');
+			writer.write(Long.toString(value));
+		}
+	}
+
+	@Override
+	public void end() {
+		if (header != null) {
+			writer.write(header.toString());
+			writer.write('\n');
+			writer.write(first.toString());
+			header = null;
+			first = null;
+		}
+
+		writer.write('\n');
+	}
+}
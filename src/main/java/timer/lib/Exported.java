@@ -0,0 +1,8 @@
+package timer.lib;
+
+/**
+ * A report item that can be written out for other programs to read, as an alternative to {@link Formatted}.
+ */
+public interface Exported {
+	void export(Exporter exporter);
+}
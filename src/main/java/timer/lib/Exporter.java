@@ -0,0 +1,58 @@
+package timer.lib;
+
+import java.io.PrintWriter;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Writes report items as rows of named fields straight to the writer as they're produced, so that exports of any size
+ * take one pass and no formatting of whole lines. Each row starts with the name of the report it belongs to. Times
+ * spent are whole seconds and dates are ISO 8601 in the local time zone, without the time for days. Like the writer,
+ * exporting doesn't throw, so check the writer for errors once done.
+ */
+public abstract class Exporter {
+	private static final String DATE_FORMAT = "yyyy-MM-dd'T'HH:mm:ss.SSSXXX";
+	private static final String DAY_FORMAT = "yyyy-MM-dd";
+
+	protected final PrintWriter writer;
+
+	private final SimpleDateFormat dateFormat = new SimpleDateFormat(DATE_FORMAT);
+	private final SimpleDateFormat dayFormat = new SimpleDateFormat(DAY_FORMAT);
+
+	protected Exporter(PrintWriter writer) {
+		this.writer = writer;
+	}
+
+	/**
+	 * The exporter for the format, json or csv, or null if there isn't one.
+	 */
+	public static Exporter create(String format, PrintWriter writer) {
+		switch (format) {
+		case "json":
+			return new JsonExporter(writer);
+		case "csv":
+			return new CsvExporter(writer);
+		default:
+			return null;
+		}
+	}
+
+	public abstract void row(String report);
+
+	public abstract void field(String name, String value);
+
+	public abstract void field(String name, long value);
+
+	public void field(String name, Date value) {
+		field(name, value != null ? dateFormat.format(value) : null);
+	}
+
+	/**
+	 * The date alone, for fields that are a whole day or longer.
+	 */
+	public void day(String name, Date value) {
+		field(name, value != null ? dayFormat.format(value) : null);
+	}
+
+	public abstract void end();
+}
@@ -0,0 +1,213 @@
+package timer.lib;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Weighted totals by key that keep to a fixed number of counters, using the Space-Saving algorithm of Metwally,
+ * Agrawal and El Abbadi. While there are no more keys than counters the totals are exact. After that, a key without a
+ * counter takes over the one with the smallest total, adding its weight to that total, so a total can only ever be
+ * too high, and by no more than the total of all weights divided by the number of counters. Any key whose true total
+ * is above that bound is sure to have a counter.
+ */
+public final class HeavyHitters {
+	@AllArgsConstructor
+	public static final class Entry {
+		@Getter
+		private final String key;
+
+		@Getter
+		private final long total;
+
+		// How much of the total may have belonged to other keys
+		@Getter
+		private final long error;
+	}
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	@Getter
+	private final int capacity;
+
+	private final Map<String, Integer> counters = new HashMap<>();
+
+	// Counters by id, which stays the same while a counter is moved about the heap
+	private String[] keys = new String[INITIAL_CAPACITY];
+	private long[] totals = new long[INITIAL_CAPACITY];
+	private long[] errors = new long[INITIAL_CAPACITY];
+
+	// Min heap of counter ids by total, with the position of each counter in it
+	private int[] heap = new int[INITIAL_CAPACITY];
+	private int[] positions = new int[INITIAL_CAPACITY];
+	private int size;
+
+	@Getter
+	private long weight;
+
+	// Whether any key has lost its counter, after which keys without one may have had up to the smallest total
+	private boolean dropped;
+
+	public HeavyHitters(int capacity) {
+		this.capacity = capacity;
+	}
+
+	private void grow() {
+		final int length = (int) Math.min(capacity, keys.length * 2l);
+		keys = Arrays.copyOf(keys, length);
+		totals = Arrays.copyOf(totals, length);
+		errors = Arrays.copyOf(errors, length);
+		heap = Arrays.copyOf(heap, length);
+		positions = Arrays.copyOf(positions, length);
+	}
+
+	private void swap(int i, int j) {
+		final int counter = heap[i];
+		heap[i] = heap[j];
+		heap[j] = counter;
+		positions[heap[i]] = i;
+		positions[heap[j]] = j;
+	}
+
+	// Totals only go up, so a counter only ever has to move down the heap
+	private void siftDown(int i) {
+		while (true) {
+			final int left = 2 * i + 1, right = left + 1;
+			int smallest = i;
+			if (left < size && totals[heap[left]] < totals[heap[smallest]]) {
+				smallest = left;
+			}
+			if (right < size && totals[heap[right]] < totals[heap[smallest]]) {
+				smallest = right;
+			}
+
+			if (smallest == i) {
+				return;
+			}
+
+			swap(i, smallest);
+			i = smallest;
+		}
+	}
+
+	private void siftUp(int i) {
+		while (i > 0) {
+			final int parent = (i - 1) / 2;
+			if (totals[heap[parent]] <= totals[heap[i]]) {
+				return;
+			}
+
+			swap(i, parent);
+			i = parent;
+		}
+	}
+
+	private void add(String key, long weight, long error) {
+		this.weight += weight;
+
+		final Integer counter = counters.get(key);
+		if (counter != null) {
+			totals[counter] += weight;
+			errors[counter] += error;
+			siftDown(positions[counter]);
+		} else if (size < capacity) {
+			if (size == keys.length) {
+				grow();
+			}
+
+			final int added = size++;
+			keys[added] = key;
+			totals[added] = weight;
+			errors[added] = error;
+			heap[added] = added;
+			positions[added] = added;
+			counters.put(key, added);
+			siftUp(added);
+		} else {
+			final int smallest = heap[0];
+			dropped = true;
+			counters.remove(keys[smallest]);
+			counters.put(key, smallest);
+
+			keys[smallest] = key;
+			errors[smallest] = totals[smallest] + error;
+			totals[smallest] += weight;
+			siftDown(0);
+		}
+	}
+
+	public void add(String key, long weight) {
+		add(key, weight, 0l);
+	}
+
+	/**
+	 * Adds in the totals of another, whose errors are carried over, so the bound becomes the sum of both bounds. Keys
+	 * the other has dropped may have had up to its smallest total there, so that's added to them as error.
+	 */
+	public void merge(HeavyHitters other) {
+		if (other.dropped) {
+			final long smallest = other.totals[other.heap[0]];
+			for (int counter = 0; counter < size; counter++) {
+				if (!other.counters.containsKey(keys[counter])) {
+					totals[counter] += smallest;
+					errors[counter] += smallest;
+					siftDown(positions[counter]);
+				}
+			}
+
+			dropped = true;
+		}
+
+		for (int counter = 0; counter < other.size; counter++) {
+			add(other.keys[counter], other.totals[counter], other.errors[counter]);
+		}
+	}
+
+	/**
+	 * The most any total may be too high by, which is 0 while the totals are exact.
+	 */
+	public long getError() {
+		long result = 0l;
+		for (int counter = 0; counter < size; counter++) {
+			result = Math.max(result, errors[counter]);
+		}
+
+		return result;
+	}
+
+	/**
+	 * The keys with the highest totals, highest first, choosing between equal totals by key.
+	 */
+	public List<Entry> top(int count) {
+		final Comparator<Integer> order = (a, b) -> totals[a] != totals[b] ? Long.compare(totals[a], totals[b])
+				: keys[b].compareTo(keys[a]);
+
+		// Keep the best so far in a heap with the least of them on top, so it never holds more than the count
+		final PriorityQueue<Integer> best = new PriorityQueue<>(Math.max(1, Math.min(count, size)), order);
+		for (int counter = 0; counter < size && count > 0; counter++) {
+			if (best.size() < count) {
+				best.add(counter);
+			} else if (order.compare(counter, best.peek()) > 0) {
+				best.poll();
+				best.add(counter);
+			}
+		}
+
+		final List<Entry> result = new ArrayList<>(best.size());
+		while (!best.isEmpty()) {
+			final int counter = best.poll();
+			result.add(new Entry(keys[counter], totals[counter], errors[counter]));
+		}
+
+		Collections.reverse(result);
+		return result;
+	}
+}
@@ -0,0 +1,100 @@
+package timer.lib;
+
+import lombok.Getter;
+
+/**
+ * Counts of non-negative values in a fixed set of log-scale buckets, so that percentiles can be found for any number
+ * of values in constant memory. Values below 8 get a bucket each, and every power of two from there is split into 8
+ * buckets, so a percentile is never more than an eighth above the true value. Negative values are counted as 0.
+ */
+public final class Histogram {
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = SUB_BUCKETS + (Long.SIZE - 1 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final long[] counts = new long[BUCKETS];
+
+	@Getter
+	private long count;
+
+	private long sum;
+
+	@Getter
+	private long min = Long.MAX_VALUE;
+
+	@Getter
+	private long max = Long.MIN_VALUE;
+
+	private static int bucket(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+
+		final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+		return SUB_BUCKETS + (exponent - SUB_BUCKET_BITS) * SUB_BUCKETS
+				+ (int) (value >>> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKETS;
+	}
+
+	// The largest value that falls in the bucket
+	private static long highest(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+
+		final int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+		final long mantissa = (bucket - SUB_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+
+		return ((mantissa + 1) << shift) - 1;
+	}
+
+	public void add(long value) {
+		value = Math.max(value, 0);
+		counts[bucket(value)]++;
+		count++;
+		sum += value;
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+	}
+
+	public void merge(Histogram other) {
+		for (int bucket = 0; bucket < BUCKETS; bucket++) {
+			counts[bucket] += other.counts[bucket];
+		}
+
+		count += other.count;
+		sum += other.sum;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+	}
+
+	public Histogram copy() {
+		final Histogram result = new Histogram();
+		result.merge(this);
+
+		return result;
+	}
+
+	public long getMean() {
+		return count > 0 ? sum / count : 0l;
+	}
+
+	/**
+	 * The value that the fraction of values are at or below, or 0 if there aren't any values.
+	 */
+	public long percentile(double fraction) {
+		if (count == 0) {
+			return 0l;
+		}
+
+		final long rank = Math.max(1, (long) Math.ceil(fraction * count));
+		long seen = 0;
+		for (int bucket = 0; bucket < BUCKETS; bucket++) {
+			seen += counts[bucket];
+			if (seen >= rank) {
+				return Math.max(min, Math.min(max, highest(bucket)));
+			}
+		}
+
+		return max;
+	}
+}
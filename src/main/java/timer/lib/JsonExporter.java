@@ -0,0 +1,85 @@
+package timer.lib;
+
+import java.io.PrintWriter;
+
+/**
+ * Writes each row as a JSON object on a line of its own.
+ */
+public final class JsonExporter extends Exporter {
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	public JsonExporter(PrintWriter writer) {
+		super(writer);
+	}
+
+	private void string(String value) {
+		writer.write('"');
+
+		int from = 0;
+		for (int i = 0; i < value.length(); i++) {
+			final char c = value.charAt(i);
+			if (c == '"' || c == '\\' || c < ' ') {
+				writer.write(value, from, i - from);
+				from = i + 1;
+
+				writer.write('\\');
+				switch (c) {
+				case '"':
+				case '\\':
+					writer.write(c);
+					break;
+				case '\n':
+					writer.write('n');
+					break;
+				case '\r':
+					writer.write('r');
+					break;
+				case '\t':
+					writer.write('t');
+					break;
+				default:
+					writer.write("u00");
+					writer.write(HEX[c >> 4]);
+					writer.write(HEX[c & 0xf]);
+					break;
+				}
+			}
+		}
+
+		writer.write(value, from, value.length() - from);
+		writer.write('"');
+	}
+
+	@Override
+	public void row(String report) {
+		writer.write("{\"report\":");
+		string(report);
+	}
+
+	private void name(String name) {
+		writer.write(',');
+		string(name);
+		writer.write(':');
+	}
+
+	@Override
+	public void field(String name, String value) {
+		name(name);
+		if (value != null) {
+			string(value);
+		} else {
+			writer.write("null");
+		}
+	}
+
+	@Override
+	public void field(String name, long value) {
+		name(name);
+		writer.write(Long.toString(value));
+	}
+
+	@Override
+	public void end() {
+		writer.write("}\n");
+	}
+}
@@ -0,0 +1,67 @@
+package timer.lib;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads UTF-8 lines while keeping track of the byte offset reached, which {@link java.io.BufferedReader} can't do. A
+ * final line that hasn't been terminated yet, such as one still being written, isn't returned.
+ */
+public final class LineReader implements Closeable {
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final InputStream input;
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+	private int next, limit;
+
+	private byte[] line = new byte[256];
+	private long position;
+
+	public LineReader(InputStream input, long position) {
+		this.input = input;
+		this.position = position;
+	}
+
+	/**
+	 * The offset just past the end of the last line returned.
+	 */
+	public long getPosition() {
+		return position;
+	}
+
+	public String readLine() throws IOException {
+		int length = 0;
+		while (true) {
+			if (next == limit) {
+				limit = input.read(buffer);
+				next = 0;
+				if (limit <= 0) {
+					limit = 0;
+					return null;
+				}
+			}
+
+			final byte current = buffer[next++];
+			if (current == '\n') {
+				position += length + 1;
+
+				final int end = length > 0 && line[length - 1] == '\r' ? length - 1 : length;
+				return new String(line, 0, end, StandardCharsets.UTF_8);
+			}
+
+			if (length == line.length) {
+				line = Arrays.copyOf(line, length * 2);
+			}
+
+			line[length++] = current;
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		input.close();
+	}
+}
@@ -0,0 +1,102 @@
+package timer.lib;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from long keys to long values, for totalling without boxing. {@link Long#MIN_VALUE} can't
+ * be used as a key.
+ */
+public final class LongLongMap {
+	private static final long EMPTY = Long.MIN_VALUE;
+	private static final int INITIAL_CAPACITY = 16;
+
+	private long[] keys;
+	private long[] values;
+	private int size;
+
+	public LongLongMap() {
+		keys = new long[INITIAL_CAPACITY];
+		values = new long[INITIAL_CAPACITY];
+		Arrays.fill(keys, EMPTY);
+	}
+
+	private static int slot(long key, int mask) {
+		final long hash = key * 0x9E3779B97F4A7C15l;
+		return (int) (hash ^ (hash >>> 32)) & mask;
+	}
+
+	private int find(long key) {
+		final int mask = keys.length - 1;
+		int slot = slot(key, mask);
+		while (keys[slot] != EMPTY && keys[slot] != key) {
+			slot = (slot + 1) & mask;
+		}
+
+		return slot;
+	}
+
+	private void grow() {
+		final long[] oldKeys = keys, oldValues = values;
+		keys = new long[oldKeys.length * 2];
+		values = new long[oldValues.length * 2];
+		Arrays.fill(keys, EMPTY);
+
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != EMPTY) {
+				final int slot = find(oldKeys[i]);
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+
+	public void add(long key, long delta) {
+		int slot = find(key);
+		if (keys[slot] == EMPTY) {
+			if ((size + 1) * 4 > keys.length * 3) {
+				grow();
+				slot = find(key);
+			}
+
+			keys[slot] = key;
+			size++;
+		}
+
+		values[slot] += delta;
+	}
+
+	public void put(long key, long value) {
+		add(key, value - get(key));
+	}
+
+	public boolean containsKey(long key) {
+		return keys[find(key)] != EMPTY;
+	}
+
+	public long get(long key) {
+		final int slot = find(key);
+		return keys[slot] != EMPTY ? values[slot] : 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public long[] keys() {
+		final long[] result = new long[size];
+		int next = 0;
+		for (long key : keys) {
+			if (key != EMPTY) {
+				result[next++] = key;
+			}
+		}
+
+		return result;
+	}
+
+	public long[] sortedKeys() {
+		final long[] result = keys();
+		Arrays.sort(result);
+		return result;
+	}
+}
@@ -0,0 +1,148 @@
+package timer.lib;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Wall time, memory allocated, bytes read, records read and records matched, totalled by phase in the order the phases
+ * were first started. Phases can be nested, in which case the outer phase's figures include the inner one's. Nothing
+ * is recorded by {@link #DISABLED}, whose phases do nothing, so that leaving metrics off costs no more than the calls.
+ * <p>
+ * Allocation is only counted for the thread that starts a phase, and only on JVMs that can tell, so it leaves out the
+ * threads of a parallel read.
+ * <p>
+ * Phases can be recorded from several threads at once, as when projects are read concurrently, in which case the wall
+ * time of a phase is the sum of its time on each thread.
+ */
+public final class Metrics {
+	public static final Metrics DISABLED = new Metrics(false);
+
+	private final boolean enabled;
+	private final Map<String, Totals> phases = new LinkedHashMap<>();
+
+	private Metrics(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public static Metrics create() {
+		return new Metrics(true);
+	}
+
+	private static final class Totals {
+		private long calls;
+		private long nanos;
+		private long allocated;
+		private long bytes;
+		private long records;
+		private long matched;
+	}
+
+	// Only loaded once metrics are enabled, as the management classes take a while to load
+	private static final class Allocation {
+		private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+		private static com.sun.management.ThreadMXBean threads() {
+			try {
+				final java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+				if (threads instanceof com.sun.management.ThreadMXBean
+						&& ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()
+						&& ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemoryEnabled()) {
+					return (com.sun.management.ThreadMXBean) threads;
+				}
+			} catch (LinkageError | UnsupportedOperationException e) {
+				// Not a JVM that can count allocation
+			}
+
+			return null;
+		}
+
+		private static long current() {
+			return THREADS != null ? THREADS.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0l;
+		}
+	}
+
+	/**
+	 * A phase under way, which is recorded when closed.
+	 */
+	public static final class Phase implements AutoCloseable {
+		private static final Phase NONE = new Phase(null, null);
+
+		private final Metrics metrics;
+		private final String name;
+		private final long start;
+		private final long allocated;
+		private long bytes;
+		private long records;
+		private long matched;
+
+		private Phase(Metrics metrics, String name) {
+			this.metrics = metrics;
+			this.name = name;
+			this.allocated = metrics != null ? Allocation.current() : 0l;
+			this.start = metrics != null ? System.nanoTime() : 0l;
+		}
+
+		public void read(long bytes) {
+			if (metrics != null) {
+				this.bytes += bytes;
+			}
+		}
+
+		public void records(long records, long matched) {
+			if (metrics != null) {
+				this.records += records;
+				this.matched += matched;
+			}
+		}
+
+		@Override
+		public void close() {
+			if (metrics != null) {
+				metrics.record(this, System.nanoTime() - start, Allocation.current() - allocated);
+			}
+		}
+	}
+
+	private synchronized void record(Phase phase, long nanos, long allocated) {
+		Totals totals = phases.get(phase.name);
+		if (totals == null) {
+			totals = new Totals();
+			phases.put(phase.name, totals);
+		}
+
+		totals.calls++;
+		totals.nanos += nanos;
+		totals.allocated += allocated;
+		totals.bytes += phase.bytes;
+		totals.records += phase.records;
+		totals.matched += phase.matched;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public Phase start(String name) {
+		return enabled ? new Phase(this, name) : Phase.NONE;
+	}
+
+	/**
+	 * The totals as a JSON object holding one object for each phase, by name. Phase names are expected to need no
+	 * escaping.
+	 */
+	public synchronized String toJson() {
+		final StringBuilder result = new StringBuilder("{\"phases\":{");
+		String separator = "";
+		for (Map.Entry<String, Totals> phase : phases.entrySet()) {
+			final Totals totals = phase.getValue();
+			result.append(separator).append('"').append(phase.getKey()).append("\":{\"calls\":").append(totals.calls)
+					.append(",\"wallNanos\":").append(totals.nanos).append(",\"allocatedBytes\":")
+					.append(totals.allocated).append(",\"bytesRead\":").append(totals.bytes).append(",\"records\":")
+					.append(totals.records).append(",\"matched\":").append(totals.matched).append('}');
+			separator = ",";
+		}
+
+		return result.append("}}").toString();
+	}
+}
@@ -0,0 +1,11 @@
+package timer.report;
+
+import java.util.List;
+
+import timer.TimerLogRecord;
+
+public interface Aggregator<T> {
+	void add(TimerLogRecord record);
+
+	List<T> results();
+}
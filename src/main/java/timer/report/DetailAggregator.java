@@ -0,0 +1,167 @@
+package timer.report;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+import timer.TimerDetail;
+import timer.TimerLogRecord;
+import timer.exception.BadLogFileException;
+import timer.lib.LongLongMap;
+
+public final class DetailAggregator extends GroupingAggregator<TimerDetail> {
+	private final TaskDictionary tasks = new TaskDictionary();
+
+	// Anchors are numbered in the order they're seen, so that an anchor and a task fit in one key
+	private final LongLongMap anchorIds = new LongLongMap();
+	private long[] anchors = new long[16];
+	private int anchorCount;
+
+	private static long key(int anchor, int task) {
+		return ((long) anchor << 32) | task;
+	}
+
+	private int anchorId(long anchor) {
+		if (anchorIds.containsKey(anchor)) {
+			return (int) anchorIds.get(anchor);
+		}
+
+		if (anchorCount == anchors.length) {
+			anchors = Arrays.copyOf(anchors, anchorCount * 2);
+		}
+
+		anchors[anchorCount] = anchor;
+		anchorIds.put(anchor, anchorCount);
+
+		return anchorCount++;
+	}
+
+	/**
+	 * Feeds the totals to an engine as one entry per anchor and task in anchor order, so that the totals can stand in
+	 * for the log. Anchors outside the engine's range and tasks its filter doesn't let through are left out before
+	 * anything is sorted, with the filter only checked once for each task.
+	 */
+	public void replay(ReportEngine engine) throws BadLogFileException {
+		final long from = engine.getStart() != null ? engine.getStart().getTime() : Long.MIN_VALUE;
+		final long to = engine.getEnd() != null ? engine.getEnd().getTime() : Long.MAX_VALUE;
+		final Predicate<String> filter = engine.getTaskFilter();
+
+		final boolean[] included = new boolean[tasks.size()];
+		for (int task = 0; task < included.length; task++) {
+			included[task] = filter == null || filter.test(tasks.task(task));
+		}
+
+		// Rank the anchor ids by anchor, so that sorting the keys with the rank in place of the id orders them
+		final Integer[] ids = new Integer[anchorCount];
+		for (int id = 0; id < anchorCount; id++) {
+			ids[id] = id;
+		}
+		Arrays.sort(ids, (a, b) -> Long.compare(anchors[a], anchors[b]));
+
+		final int[] ranks = new int[anchorCount];
+		for (int rank = 0; rank < anchorCount; rank++) {
+			ranks[ids[rank]] = rank;
+		}
+
+		final LongLongMap totals = totals();
+		long[] keys = totals.keys();
+		int count = 0;
+		for (long key : keys) {
+			final long anchor = anchors[(int) (key >>> 32)];
+			if (anchor >= from && anchor <= to && included[(int) key]) {
+				keys[count++] = key(ranks[(int) (key >>> 32)], (int) key);
+			}
+		}
+		keys = Arrays.copyOf(keys, count);
+		Arrays.sort(keys);
+
+		final TimerLogRecord record = new TimerLogRecord();
+		for (long rankedKey : keys) {
+			final int id = ids[(int) (rankedKey >>> 32)];
+			final long key = key(id, (int) rankedKey);
+			record.set(anchors[id], 0, totals.get(key) * 1000, tasks.task((int) key));
+			if (!engine.acceptFiltered(record)) {
+				break;
+			}
+		}
+	}
+
+	public void write(DataOutput output) throws IOException {
+		final LongLongMap totals = totals();
+		output.writeInt(tasks.size());
+		for (int task = 0; task < tasks.size(); task++) {
+			output.writeUTF(tasks.task(task));
+		}
+
+		output.writeInt(totals.size());
+		for (long key : totals.keys()) {
+			output.writeLong(anchors[(int) (key >>> 32)]);
+			output.writeInt((int) key);
+			output.writeLong(totals.get(key));
+		}
+	}
+
+	public static DetailAggregator read(DataInput input) throws IOException {
+		final DetailAggregator result = new DetailAggregator();
+		final int taskCount = input.readInt();
+		for (int task = 0; task < taskCount; task++) {
+			result.tasks.intern(input.readUTF());
+		}
+
+		final int count = input.readInt();
+		for (int i = 0; i < count; i++) {
+			final long anchor = input.readLong();
+			final int task = input.readInt();
+			result.totals().add(key(result.anchorId(anchor), task), input.readLong());
+		}
+
+		return result;
+	}
+
+	@Override
+	public DetailAggregator fork() {
+		return new DetailAggregator();
+	}
+
+	@Override
+	protected long key(TimerLogRecord record) {
+		return key(anchorId(record.getAnchor()), tasks.intern(record));
+	}
+
+	@Override
+	protected long key(GroupingAggregator<TimerDetail> other, long key) {
+		final DetailAggregator from = (DetailAggregator) other;
+		return key(anchorId(from.anchors[(int) (key >>> 32)]), tasks.intern(from.tasks.task((int) key)));
+	}
+
+	@Override
+	protected List<TimerDetail> results(LongLongMap totals) {
+		final SortedMap<Long, SortedMap<String, Long>> sorted = new TreeMap<>();
+		for (long key : totals.keys()) {
+			final long anchor = anchors[(int) (key >>> 32)];
+
+			SortedMap<String, Long> timeSpent = sorted.get(anchor);
+			if (timeSpent == null) {
+				timeSpent = new TreeMap<>();
+				sorted.put(anchor, timeSpent);
+			}
+
+			timeSpent.put(tasks.task((int) key), totals.get(key));
+		}
+
+		final List<TimerDetail> result = new ArrayList<>();
+		for (Map.Entry<Long, SortedMap<String, Long>> entry : sorted.entrySet()) {
+			result.add(new TimerDetail(new Date(entry.getKey()), entry.getValue()));
+		}
+
+		return result;
+	}
+}
@@ -0,0 +1,35 @@
+package timer.report;
+
+import java.util.Date;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import timer.TimerDetail;
+import timer.TimerLogRecord;
+import timer.lib.LongLongMap;
+
+public final class DetailStreamAggregator extends StreamingAggregator<TimerDetail> {
+	private final TaskDictionary tasks = new TaskDictionary();
+	private LongLongMap totals = new LongLongMap();
+
+	public DetailStreamAggregator(Consumer<? super TimerDetail> listener) {
+		super(listener);
+	}
+
+	@Override
+	protected void addToGroup(TimerLogRecord record) {
+		totals.add(tasks.intern(record), (record.getEnd() - record.getStart()) / 1000);
+	}
+
+	@Override
+	protected TimerDetail group(long anchor) {
+		final SortedMap<String, Long> timeSpent = new TreeMap<>();
+		for (long task : totals.keys()) {
+			timeSpent.put(tasks.task((int) task), totals.get(task));
+		}
+
+		totals = new LongLongMap();
+		return new TimerDetail(new Date(anchor), timeSpent);
+	}
+}
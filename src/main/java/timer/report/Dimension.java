@@ -0,0 +1,13 @@
+package timer.report;
+
+/**
+ * What a query can group the time spent by. Days, weeks and months are of the anchor, in the local time zone, with
+ * weeks starting on Monday.
+ */
+public enum Dimension {
+	DAY, WEEK, MONTH, TASK, PROJECT;
+
+	public boolean isPeriod() {
+		return this == DAY || this == WEEK || this == MONTH;
+	}
+}
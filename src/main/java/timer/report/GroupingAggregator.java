@@ -0,0 +1,45 @@
+package timer.report;
+
+import java.util.List;
+
+import timer.TimerLogRecord;
+import timer.lib.LongLongMap;
+
+/**
+ * Totals the time spent, in seconds, for each key of a grouping. Keys are longs, such as an anchor or an interned
+ * task, and are only turned into report items once the totals are complete.
+ */
+public abstract class GroupingAggregator<T> implements MergeableAggregator<T> {
+	private final LongLongMap totals = new LongLongMap();
+
+	protected LongLongMap totals() {
+		return totals;
+	}
+
+	protected abstract long key(TimerLogRecord record);
+
+	/**
+	 * Translates a key of another aggregator of the same kind into this one's keys, for merging.
+	 */
+	protected abstract long key(GroupingAggregator<T> other, long key);
+
+	protected abstract List<T> results(LongLongMap totals);
+
+	@Override
+	public void add(TimerLogRecord record) {
+		totals.add(key(record), (record.getEnd() - record.getStart()) / 1000);
+	}
+
+	@Override
+	public void merge(MergeableAggregator<T> other) {
+		final GroupingAggregator<T> from = (GroupingAggregator<T>) other;
+		for (long key : from.totals.keys()) {
+			totals.add(key(from, key), from.totals.get(key));
+		}
+	}
+
+	@Override
+	public List<T> results() {
+		return results(totals);
+	}
+}
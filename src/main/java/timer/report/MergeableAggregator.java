@@ -0,0 +1,14 @@
+package timer.report;
+
+/**
+ * An aggregator that can be split into empty copies, each fed part of the records, which are then merged back
+ * together. Only these can be used to read a log in parallel, with a {@link MergeableReportEngine}.
+ */
+public interface MergeableAggregator<T> extends Aggregator<T> {
+	MergeableAggregator<T> fork();
+
+	/**
+	 * Adds in the aggregator of the records that follow this one's.
+	 */
+	void merge(MergeableAggregator<T> other);
+}
@@ -0,0 +1,46 @@
+package timer.report;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A report engine whose aggregators can all be forked and merged, so that parts of the log can be read separately,
+ * in parallel, before their results are merged back in.
+ */
+public final class MergeableReportEngine extends ReportEngine {
+	private final List<MergeableAggregator<?>> aggregators;
+
+	public MergeableReportEngine(Date start, Date end, MergeableAggregator<?>... aggregators) {
+		super(start, end, aggregators);
+		this.aggregators = Arrays.asList(aggregators);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> void merge(MergeableAggregator<T> into, MergeableAggregator<?> from) {
+		into.merge((MergeableAggregator<T>) from);
+	}
+
+	/**
+	 * Creates an engine for the same range with empty copies of the aggregators, for reading part of the log
+	 * separately before being merged back in.
+	 */
+	public MergeableReportEngine fork() {
+		final MergeableAggregator<?>[] forks = new MergeableAggregator<?>[aggregators.size()];
+		for (int i = 0; i < forks.length; i++) {
+			forks[i] = aggregators.get(i).fork();
+		}
+
+		final MergeableReportEngine result = new MergeableReportEngine(getStart(), getEnd(), forks);
+		result.setTaskFilter(getTaskFilter());
+		return result;
+	}
+
+	public void merge(MergeableReportEngine other) {
+		for (int i = 0; i < aggregators.size(); i++) {
+			merge(aggregators.get(i), other.aggregators.get(i));
+		}
+
+		count(other);
+	}
+}
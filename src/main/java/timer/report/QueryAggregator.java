@@ -0,0 +1,185 @@
+package timer.report;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+import timer.TimerGroup;
+import timer.TimerLogRecord;
+import timer.lib.LongLongMap;
+
+/**
+ * Totals the time spent grouped by any of the {@link Dimension}s, at most one of them a period, with the results
+ * ordered by the dimensions in the order given. The project isn't in the log, so it's set on the aggregator for each
+ * project fed to it.
+ */
+public final class QueryAggregator extends GroupingAggregator<TimerGroup> {
+	// A key holds a period id, a project id and a task id, each 0 when not grouped by. Tasks get the same 32 bits as
+	// in DetailAggregator, leaving 16 each for periods, enough for 179 years of days, and projects
+	private static final int PERIOD_SHIFT = 48;
+	private static final int PROJECT_SHIFT = 32;
+	private static final long PROJECT_MASK = (1l << (PERIOD_SHIFT - PROJECT_SHIFT)) - 1;
+	private static final long TASK_MASK = (1l << PROJECT_SHIFT) - 1;
+	private static final long PERIOD_MASK = (1l << (Long.SIZE - PERIOD_SHIFT)) - 1;
+
+	private final List<Dimension> dimensions;
+	private final Dimension period;
+	private final boolean byTask, byProject;
+
+	private final TaskDictionary tasks = new TaskDictionary();
+	private final TaskDictionary projects = new TaskDictionary();
+	private int project;
+
+	// Periods are numbered in the order they're seen, as anchors are by DetailAggregator
+	private final LongLongMap periodIds = new LongLongMap();
+	private long[] periods = new long[16];
+	private int periodCount;
+
+	// The period of the latest anchor, as anchors mostly come in order
+	private final Calendar calendar = Calendar.getInstance();
+	private long periodFrom = Long.MAX_VALUE, periodTo = Long.MIN_VALUE;
+	private int periodId;
+
+	public QueryAggregator(List<Dimension> dimensions) {
+		this.dimensions = new ArrayList<>(dimensions);
+
+		Dimension period = null;
+		for (Dimension dimension : dimensions) {
+			if (dimension.isPeriod()) {
+				if (period != null && period != dimension) {
+					throw new IllegalArgumentException("Only one period can be grouped by");
+				}
+				period = dimension;
+			}
+		}
+
+		this.period = period;
+		this.byTask = dimensions.contains(Dimension.TASK);
+		this.byProject = dimensions.contains(Dimension.PROJECT);
+
+		calendar.setFirstDayOfWeek(Calendar.MONDAY);
+	}
+
+	/**
+	 * Sets the project that the records added from now on belong to.
+	 */
+	public void setProject(String project) {
+		this.project = byProject ? projectId(project) : 0;
+	}
+
+	private int projectId(String project) {
+		final int result = projects.intern(project);
+		if (result > PROJECT_MASK) {
+			throw new IllegalStateException("Too many projects to group by");
+		}
+
+		return result;
+	}
+
+	private static long key(int period, int project, int task) {
+		return ((long) period << PERIOD_SHIFT) | ((long) project << PROJECT_SHIFT) | task;
+	}
+
+	private int periodId(long start) {
+		if (periodIds.containsKey(start)) {
+			return (int) periodIds.get(start);
+		}
+
+		if (periodCount > PERIOD_MASK) {
+			throw new IllegalStateException("Too many periods to group by");
+		}
+
+		if (periodCount == periods.length) {
+			periods = Arrays.copyOf(periods, periodCount * 2);
+		}
+
+		periods[periodCount] = start;
+		periodIds.put(start, periodCount);
+
+		return periodCount++;
+	}
+
+	private int period(long anchor) {
+		if (period == null) {
+			return 0;
+		}
+
+		if (anchor < periodFrom || anchor >= periodTo) {
+			calendar.setTimeInMillis(anchor);
+			calendar.set(Calendar.HOUR_OF_DAY, 0);
+			calendar.set(Calendar.MINUTE, 0);
+			calendar.set(Calendar.SECOND, 0);
+			calendar.set(Calendar.MILLISECOND, 0);
+
+			final int field;
+			if (period == Dimension.WEEK) {
+				calendar.set(Calendar.DAY_OF_WEEK, Calendar.MONDAY);
+				field = Calendar.WEEK_OF_YEAR;
+			} else if (period == Dimension.MONTH) {
+				calendar.set(Calendar.DAY_OF_MONTH, 1);
+				field = Calendar.MONTH;
+			} else {
+				field = Calendar.DAY_OF_MONTH;
+			}
+
+			periodFrom = calendar.getTimeInMillis();
+			calendar.add(field, 1);
+			periodTo = calendar.getTimeInMillis();
+			periodId = periodId(periodFrom);
+		}
+
+		return periodId;
+	}
+
+	@Override
+	public QueryAggregator fork() {
+		return new QueryAggregator(dimensions);
+	}
+
+	@Override
+	protected long key(TimerLogRecord record) {
+		return key(period(record.getAnchor()), project, byTask ? tasks.intern(record) : 0);
+	}
+
+	@Override
+	protected long key(GroupingAggregator<TimerGroup> other, long key) {
+		final QueryAggregator from = (QueryAggregator) other;
+		final int period = this.period != null ? periodId(from.periods[(int) (key >>> PERIOD_SHIFT)]) : 0;
+		final int project =
+				byProject ? projectId(from.projects.task((int) ((key >>> PROJECT_SHIFT) & PROJECT_MASK))) : 0;
+		final int task = byTask ? tasks.intern(from.tasks.task((int) (key & TASK_MASK))) : 0;
+
+		return key(period, project, task);
+	}
+
+	private Comparator<TimerGroup> order() {
+		Comparator<TimerGroup> result = (a, b) -> 0;
+		for (Dimension dimension : dimensions) {
+			if (dimension.isPeriod()) {
+				result = result.thenComparing(TimerGroup::getPeriod);
+			} else if (dimension == Dimension.PROJECT) {
+				result = result.thenComparing(TimerGroup::getProject);
+			} else {
+				result = result.thenComparing(TimerGroup::getTask);
+			}
+		}
+
+		return result;
+	}
+
+	@Override
+	protected List<TimerGroup> results(LongLongMap totals) {
+		final List<TimerGroup> result = new ArrayList<>();
+		for (long key : totals.keys()) {
+			result.add(new TimerGroup(period, period != null ? new Date(periods[(int) (key >>> PERIOD_SHIFT)]) : null,
+					byProject ? projects.task((int) ((key >>> PROJECT_SHIFT) & PROJECT_MASK)) : null,
+					byTask ? tasks.task((int) (key & TASK_MASK)) : null, totals.get(key)));
+		}
+
+		result.sort(order());
+		return result;
+	}
+}
@@ -0,0 +1,86 @@
+package timer.report;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Predicate;
+
+import lombok.Getter;
+import lombok.Setter;
+import timer.TimerLogRecord;
+import timer.exception.BadLogFileException;
+
+/**
+ * Feeds every finished log entry in a date range to any number of aggregators, so that several reports can be
+ * produced from a single read of the log. The records are fed in the order they're read, so this can be used with any
+ * aggregator, whereas a {@link MergeableReportEngine} can also read the log in parallel.
+ */
+public class ReportEngine {
+	@Getter
+	private final Date start;
+
+	@Getter
+	private final Date end;
+
+	private final List<Aggregator<?>> aggregators;
+
+	// Only the tasks it lets through, named as reports name them, are aggregated, or all of them if it's null
+	@Getter
+	@Setter
+	private Predicate<String> taskFilter;
+
+	// The records accepted, and of those the ones passed on to the aggregators
+	@Getter
+	private long records;
+
+	@Getter
+	private long matched;
+
+	public ReportEngine(Date start, Date end, Aggregator<?>... aggregators) {
+		this.start = start;
+		this.end = end;
+		this.aggregators = new ArrayList<>(Arrays.asList(aggregators));
+	}
+
+	// Adds the counts of an engine that read another part of the log
+	void count(ReportEngine other) {
+		records += other.records;
+		matched += other.matched;
+	}
+
+	/**
+	 * Returns false once the record is past the end of the range, after which there's no need to read any further
+	 * as the log is written in anchor order.
+	 */
+	public boolean accept(TimerLogRecord record) throws BadLogFileException {
+		return accept(record, taskFilter);
+	}
+
+	// For records whose task has already been checked against the filter
+	boolean acceptFiltered(TimerLogRecord record) throws BadLogFileException {
+		return accept(record, null);
+	}
+
+	private boolean accept(TimerLogRecord record, Predicate<String> taskFilter) throws BadLogFileException {
+		if (!record.hasAnchor()) {
+			throw new BadLogFileException();
+		}
+
+		if (end != null && record.getAnchor() > end.getTime()) {
+			return false;
+		}
+
+		records++;
+		if (record.hasStart() && record.hasEnd() && (start == null || record.getAnchor() >= start.getTime())
+				&& (taskFilter == null
+						|| taskFilter.test(record.isTaskBlank() ? TaskDictionary.NO_TASK : record.getTask()))) {
+			matched++;
+			for (Aggregator<?> aggregator : aggregators) {
+				aggregator.add(record);
+			}
+		}
+
+		return true;
+	}
+}
@@ -0,0 +1,120 @@
+package timer.report;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import timer.TimerDistribution;
+import timer.TimerLogRecord;
+import timer.lib.Histogram;
+
+/**
+ * Distribution of the lengths of the intervals worked and of the total worked for each anchor, in seconds. Only the
+ * intervals and totals as they come out of the log are used, so this needs a read of the log rather than of the
+ * persisted totals, and the memory it takes doesn't grow with the number of them.
+ * <p>
+ * An anchor's total is only known once the log moves on to another anchor. The part of the log before or after the
+ * part read may hold more of the first or latest anchor seen, so these two are held back until merged with the
+ * aggregator for the part that follows, or until the results are asked for.
+ */
+public final class SessionAggregator implements MergeableAggregator<TimerDistribution> {
+	private static final long NONE = TimerLogRecord.NONE;
+
+	private final Histogram intervals = new Histogram();
+	private final Histogram anchors = new Histogram();
+
+	private long firstAnchor = NONE, firstTotal;
+	private long latestAnchor = NONE, latestTotal;
+
+	private void finish(long anchor, long total) {
+		if (firstAnchor == NONE) {
+			firstAnchor = anchor;
+			firstTotal = total;
+		} else {
+			anchors.add(total);
+		}
+	}
+
+	@Override
+	public void add(TimerLogRecord record) {
+		final long seconds = Math.max(0, (record.getEnd() - record.getStart()) / 1000);
+		intervals.add(seconds);
+
+		if (record.getAnchor() == latestAnchor) {
+			latestTotal += seconds;
+		} else {
+			if (latestAnchor != NONE) {
+				finish(latestAnchor, latestTotal);
+			}
+
+			latestAnchor = record.getAnchor();
+			latestTotal = seconds;
+		}
+	}
+
+	private static TimerDistribution distribution(String name, Histogram histogram) {
+		return new TimerDistribution(name, histogram.getCount(), histogram.getMean(), histogram.percentile(0.5),
+				histogram.percentile(0.9), histogram.percentile(0.99), histogram.percentile(1));
+	}
+
+	@Override
+	public List<TimerDistribution> results() {
+		final Histogram totals = anchors.copy();
+		if (firstAnchor != NONE) {
+			totals.add(firstTotal);
+		}
+		if (latestAnchor != NONE) {
+			totals.add(latestTotal);
+		}
+
+		final List<TimerDistribution> result = new ArrayList<>();
+		result.add(distribution("Intervals", intervals));
+		result.add(distribution("Anchor totals", totals));
+
+		return result;
+	}
+
+	@Override
+	public SessionAggregator fork() {
+		return new SessionAggregator();
+	}
+
+	/**
+	 * Adds in the aggregator for the part of the log that follows this one's.
+	 */
+	@Override
+	public void merge(MergeableAggregator<TimerDistribution> other) {
+		final SessionAggregator from = (SessionAggregator) other;
+		intervals.merge(from.intervals);
+		anchors.merge(from.anchors);
+
+		if (from.latestAnchor == NONE) {
+			return;
+		}
+
+		if (latestAnchor == NONE) {
+			firstAnchor = from.firstAnchor;
+			firstTotal = from.firstTotal;
+			latestAnchor = from.latestAnchor;
+			latestTotal = from.latestTotal;
+			return;
+		}
+
+		// The other part's first anchor may carry on from this part's latest
+		final boolean single = from.firstAnchor == NONE;
+		final long headAnchor = single ? from.latestAnchor : from.firstAnchor;
+		final long headTotal = single ? from.latestTotal : from.firstTotal;
+		if (headAnchor == latestAnchor) {
+			latestTotal += headTotal;
+		} else {
+			finish(latestAnchor, latestTotal);
+			latestAnchor = headAnchor;
+			latestTotal = headTotal;
+		}
+
+		if (!single) {
+			finish(latestAnchor, latestTotal);
+			latestAnchor = from.latestAnchor;
+			latestTotal = from.latestTotal;
+		}
+	}
+}
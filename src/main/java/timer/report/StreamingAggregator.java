@@ -0,0 +1,60 @@
+package timer.report;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import timer.TimerLogRecord;
+
+/**
+ * Passes report items to a listener as it goes rather than collecting them, relying on records arriving in anchor
+ * order as they do from the log and its saved totals. The aggregator only holds the group for the current anchor, and
+ * hands it over as soon as a record for the next anchor turns up. The last group is handed over by {@link #finish()}.
+ * What else is held depends on where the records come from: {@link timer.Timer#reportTotals} holds the saved totals by
+ * anchor and task.
+ * <p>
+ * As the order matters, these aren't {@link MergeableAggregator}s, and can't be used to read parts of the log in
+ * parallel.
+ */
+public abstract class StreamingAggregator<T> implements Aggregator<T> {
+	private final Consumer<? super T> listener;
+
+	private long anchor = TimerLogRecord.NONE;
+
+	protected StreamingAggregator(Consumer<? super T> listener) {
+		this.listener = listener;
+	}
+
+	protected abstract void addToGroup(TimerLogRecord record);
+
+	/**
+	 * Creates the item for the group of the anchor and clears the group for the next one.
+	 */
+	protected abstract T group(long anchor);
+
+	@Override
+	public void add(TimerLogRecord record) {
+		if (record.getAnchor() != anchor) {
+			finish();
+			anchor = record.getAnchor();
+		}
+
+		addToGroup(record);
+	}
+
+	public void finish() {
+		if (anchor != TimerLogRecord.NONE) {
+			listener.accept(group(anchor));
+			anchor = TimerLogRecord.NONE;
+		}
+	}
+
+	/**
+	 * Hands over the last group. Items only ever go to the listener, so there are no results to return.
+	 */
+	@Override
+	public List<T> results() {
+		finish();
+		return Collections.emptyList();
+	}
+}
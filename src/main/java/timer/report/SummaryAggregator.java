@@ -0,0 +1,36 @@
+package timer.report;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import timer.TimerLogRecord;
+import timer.TimerSummary;
+import timer.lib.LongLongMap;
+
+public final class SummaryAggregator extends GroupingAggregator<TimerSummary> {
+	@Override
+	public SummaryAggregator fork() {
+		return new SummaryAggregator();
+	}
+
+	@Override
+	protected long key(TimerLogRecord record) {
+		return record.getAnchor();
+	}
+
+	@Override
+	protected long key(GroupingAggregator<TimerSummary> other, long key) {
+		return key;
+	}
+
+	@Override
+	protected List<TimerSummary> results(LongLongMap totals) {
+		final List<TimerSummary> result = new ArrayList<>();
+		for (long anchor : totals.sortedKeys()) {
+			result.add(new TimerSummary(new Date(anchor), totals.get(anchor)));
+		}
+
+		return result;
+	}
+}
@@ -0,0 +1,28 @@
+package timer.report;
+
+import java.util.Date;
+import java.util.function.Consumer;
+
+import timer.TimerLogRecord;
+import timer.TimerSummary;
+
+public final class SummaryStreamAggregator extends StreamingAggregator<TimerSummary> {
+	private long total;
+
+	public SummaryStreamAggregator(Consumer<? super TimerSummary> listener) {
+		super(listener);
+	}
+
+	@Override
+	protected void addToGroup(TimerLogRecord record) {
+		total += (record.getEnd() - record.getStart()) / 1000;
+	}
+
+	@Override
+	protected TimerSummary group(long anchor) {
+		final TimerSummary result = new TimerSummary(new Date(anchor), total);
+		total = 0l;
+
+		return result;
+	}
+}
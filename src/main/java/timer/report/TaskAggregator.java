@@ -0,0 +1,45 @@
+package timer.report;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import timer.TimerLogRecord;
+import timer.TimerTaskReport;
+import timer.lib.LongLongMap;
+
+public final class TaskAggregator extends GroupingAggregator<TimerTaskReport> {
+	private final TaskDictionary tasks = new TaskDictionary();
+
+	@Override
+	public TaskAggregator fork() {
+		return new TaskAggregator();
+	}
+
+	@Override
+	protected long key(TimerLogRecord record) {
+		return tasks.intern(record);
+	}
+
+	@Override
+	protected long key(GroupingAggregator<TimerTaskReport> other, long key) {
+		return tasks.intern(((TaskAggregator) other).tasks.task((int) key));
+	}
+
+	@Override
+	protected List<TimerTaskReport> results(LongLongMap totals) {
+		final SortedMap<String, Long> sorted = new TreeMap<>();
+		for (long task : totals.keys()) {
+			sorted.put(tasks.task((int) task), totals.get(task));
+		}
+
+		final List<TimerTaskReport> result = new ArrayList<>();
+		for (Map.Entry<String, Long> entry : sorted.entrySet()) {
+			result.add(new TimerTaskReport(entry.getKey(), entry.getValue()));
+		}
+
+		return result;
+	}
+}
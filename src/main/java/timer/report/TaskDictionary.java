@@ -0,0 +1,113 @@
+package timer.report;
+
+import java.util.Arrays;
+
+import timer.TimerLogRecord;
+
+/**
+ * Interns task names to small int ids. Lookups hash and compare the task straight from the record, so a string is
+ * only created the first time a task is seen.
+ */
+public final class TaskDictionary {
+	public static final String NO_TASK = "<No Task>";
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private String[] tasks = new String[INITIAL_CAPACITY];
+	private int[] hashes = new int[INITIAL_CAPACITY];
+	private int size;
+
+	// Slots hold the id plus one, so that zero means empty
+	private int[] table = new int[INITIAL_CAPACITY * 2];
+
+	private int noTask = -1;
+
+	private static int slot(int hash, int mask) {
+		return (hash ^ (hash >>> 16)) & mask;
+	}
+
+	private void grow() {
+		tasks = Arrays.copyOf(tasks, tasks.length * 2);
+		hashes = Arrays.copyOf(hashes, hashes.length * 2);
+
+		table = new int[table.length * 2];
+		final int mask = table.length - 1;
+		for (int id = 0; id < size; id++) {
+			int slot = slot(hashes[id], mask);
+			while (table[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+
+			table[slot] = id + 1;
+		}
+	}
+
+	private int add(String task, int hash, int slot) {
+		if (size == tasks.length) {
+			grow();
+
+			final int mask = table.length - 1;
+			slot = slot(hash, mask);
+			while (table[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+		}
+
+		tasks[size] = task;
+		hashes[size] = hash;
+		table[slot] = size + 1;
+
+		return size++;
+	}
+
+	public int intern(String task) {
+		final int hash = task.hashCode();
+		final int mask = table.length - 1;
+		int slot = slot(hash, mask);
+		while (table[slot] != 0) {
+			final int id = table[slot] - 1;
+			if (hashes[id] == hash && tasks[id].equals(task)) {
+				return id;
+			}
+
+			slot = (slot + 1) & mask;
+		}
+
+		return add(task, hash, slot);
+	}
+
+	/**
+	 * Interns the task of the record, with empty and "null" tasks all becoming {@link #NO_TASK}.
+	 */
+	public int intern(TimerLogRecord record) {
+		if (record.isTaskBlank()) {
+			if (noTask < 0) {
+				noTask = intern(NO_TASK);
+			}
+
+			return noTask;
+		}
+
+		final int hash = record.taskHashCode();
+		final int mask = table.length - 1;
+		int slot = slot(hash, mask);
+		while (table[slot] != 0) {
+			final int id = table[slot] - 1;
+			if (hashes[id] == hash && record.taskEquals(tasks[id])) {
+				return id;
+			}
+
+			slot = (slot + 1) & mask;
+		}
+
+		return add(record.getTask(), hash, slot);
+	}
+
+	public String task(int id) {
+		return tasks[id];
+	}
+
+	public int size() {
+		return size;
+	}
+}
@@ -0,0 +1,63 @@
+package timer.report;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import timer.TimerLogRecord;
+import timer.TimerTaskReport;
+import timer.lib.HeavyHitters;
+
+/**
+ * Time spent on the tasks with the most time spent, most first. Totals are kept for a fixed number of tasks, so memory
+ * stays bounded however many distinct tasks there are. Up to that number the totals are exact. Beyond it they're
+ * estimates that are never too low and are at most the total time divided by the number of tasks kept too high, which
+ * {@link #getError()} gives a tighter figure for.
+ */
+public final class TopTaskAggregator implements MergeableAggregator<TimerTaskReport> {
+	public static final int CAPACITY = 64 * 1024;
+
+	private final int limit;
+	private final HeavyHitters tasks;
+
+	public TopTaskAggregator(int limit) {
+		this(limit, Math.max(limit, CAPACITY));
+	}
+
+	public TopTaskAggregator(int limit, int capacity) {
+		this.limit = limit;
+		this.tasks = new HeavyHitters(capacity);
+	}
+
+	@Override
+	public void add(TimerLogRecord record) {
+		tasks.add(record.isTaskBlank() ? TaskDictionary.NO_TASK : record.getTask(),
+				(record.getEnd() - record.getStart()) / 1000);
+	}
+
+	/**
+	 * The most any of the totals may be too high by, in seconds, which is 0 while they're exact.
+	 */
+	public long getError() {
+		return tasks.getError();
+	}
+
+	@Override
+	public List<TimerTaskReport> results() {
+		final List<TimerTaskReport> result = new ArrayList<>();
+		for (HeavyHitters.Entry entry : tasks.top(limit)) {
+			result.add(new TimerTaskReport(entry.getKey(), entry.getTotal()));
+		}
+
+		return result;
+	}
+
+	@Override
+	public TopTaskAggregator fork() {
+		return new TopTaskAggregator(limit, tasks.getCapacity());
+	}
+
+	@Override
+	public void merge(MergeableAggregator<TimerTaskReport> other) {
+		tasks.merge(((TopTaskAggregator) other).tasks);
+	}
+}
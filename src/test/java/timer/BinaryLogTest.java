@@ -0,0 +1,123 @@
+package timer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Date;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import timer.exception.BadLogFileException;
+
+public class BinaryLogTest {
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private static String tasksFilePath(Timer timer) {
+		return new File(timer.getDirectory(), BinaryLog.TASKS_FILE).getPath();
+	}
+
+	// Every report the text log gives, for the whole log and for part of it, from the binary log
+	private static void assertSameReports(Timer text, Timer binary) throws Exception {
+		assertTrue(BinaryLog.isBinary(TimerLogs.logFilePath(binary)));
+
+		final Date start = TimerLogs.date(2023, 5, 2), end = TimerLogs.date(2024, 1, 9);
+		assertEquals(TimerLogs.scan(text, null, null), TimerLogs.scan(binary, null, null));
+		assertEquals(TimerLogs.scan(text, start, end), TimerLogs.scan(binary, start, end));
+		assertEquals(TimerLogs.totals(text, start, null), TimerLogs.totals(binary, start, null));
+		assertEquals(TimerLogs.sessions(text, null, end), TimerLogs.sessions(binary, null, end));
+		assertEquals(TimerLogs.detail(text.detail(start, end)), TimerLogs.detail(binary.detail(start, end)));
+		assertEquals(TimerLogs.summary(text.summary(null, null)), TimerLogs.summary(binary.summary(null, null)));
+	}
+
+	private void assertConvertedLogMatches(boolean segmented) throws Exception {
+		final Timer text = TimerLogs.timer(new File(folder.getRoot(), "text"), segmented);
+		final Timer binary = TimerLogs.timer(new File(folder.getRoot(), "binary"), segmented);
+		final String events = TimerLogs.events(6, TimerLogs.date(2023, 1, 1), 400);
+		TimerLogs.write(text, events);
+		TimerLogs.write(binary, events);
+
+		binary.convert();
+		assertSameReports(text, binary);
+
+		// The binary log goes on being written in its own format
+		final String moreEvents = TimerLogs.events(7, TimerLogs.date(2024, 2, 10), 60);
+		TimerLogs.write(text, moreEvents);
+		TimerLogs.write(binary, moreEvents);
+		assertSameReports(text, binary);
+	}
+
+	@Test
+	public void convertedLogMatchesTextLog() throws Exception {
+		assertConvertedLogMatches(false);
+	}
+
+	@Test
+	public void convertedSegmentedLogMatchesTextLog() throws Exception {
+		assertConvertedLogMatches(true);
+	}
+
+	@Test
+	public void dictionaryHoldsEachTaskOnce() throws Exception {
+		final Timer timer = TimerLogs.timer(folder.getRoot(), false);
+		timer.convert();
+
+		// Switching back and forth, within one write and across several
+		for (int day = 1; day <= 3; day++) {
+			final StringBuilder events = new StringBuilder();
+			events.append("2024-01-0").append(day).append(" 09:00:00,start,alpha\n");
+			for (int hour = 10; hour < 18; hour++) {
+				events.append("2024-01-0").append(day).append(' ').append(hour).append(":00:00,pause\n");
+				events.append("2024-01-0").append(day).append(' ').append(hour).append(":05:00,resume,")
+						.append(hour % 2 == 0 ? "beta" : "alpha").append('\n');
+			}
+
+			events.append("2024-01-0").append(day).append(" 18:00:00,stop\n");
+			TimerLogs.write(timer, events.toString());
+		}
+
+		final byte[] tasks = Files.readAllBytes(new File(tasksFilePath(timer)).toPath());
+		assertEquals(2 * 4 + "alpha".length() + "beta".length(), tasks.length);
+		assertEquals("[alpha 50400, beta 39600]", TimerLogs.task(timer.task(null, null)).toString());
+	}
+
+	@Test
+	public void readsDictionaryWithRepeatedTasks() throws Exception {
+		final Timer timer = TimerLogs.timer(folder.getRoot(), false);
+		TimerLogs.write(timer, "2024-01-01 09:00:00,start,alpha\n2024-01-01 10:00:00,stop\n");
+		timer.convert();
+
+		// As written before tasks were looked up, with the task added again further on
+		try (final RandomAccessFile tasks = new RandomAccessFile(tasksFilePath(timer), "rw")) {
+			final byte[] name = "alpha".getBytes(StandardCharsets.UTF_8);
+			tasks.seek(tasks.length());
+			tasks.writeInt(name.length);
+			tasks.write(name);
+		}
+
+		final long length = new File(tasksFilePath(timer)).length();
+		TimerLogs.write(timer, "2024-01-02 09:00:00,start,alpha\n2024-01-02 09:30:00,stop\n");
+		assertEquals(length, new File(tasksFilePath(timer)).length());
+		assertEquals(Arrays.asList("alpha 5400"), TimerLogs.task(timer.task(null, null)));
+	}
+
+	@Test(expected = BadLogFileException.class)
+	public void rejectsTaskMissingFromDictionary() throws Exception {
+		final Timer timer = TimerLogs.timer(folder.getRoot(), false);
+		TimerLogs.write(timer, "2024-01-01 09:00:00,start,alpha\n2024-01-01 10:00:00,stop\n");
+		timer.convert();
+
+		try (final RandomAccessFile tasks = new RandomAccessFile(tasksFilePath(timer), "rw")) {
+			tasks.setLength(2);
+		}
+
+		TimerLogs.scan(timer, null, null);
+	}
+}
@@ -0,0 +1,62 @@
+package timer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ParallelLogScannerTest {
+	@ClassRule
+	public static final TemporaryFolder FOLDER = new TemporaryFolder();
+
+	private static Timer timer;
+
+	@BeforeClass
+	public static void createLog() throws Exception {
+		// Long enough for the log to be split into several chunks
+		timer = TimerLogs.timer(FOLDER.getRoot(), false);
+		TimerLogs.write(timer, TimerLogs.events(1, TimerLogs.date(2000, 1, 1), 20000));
+		assertTrue(new File(TimerLogs.logFilePath(timer)).length() > 2 * 4 * 1024 * 1024);
+	}
+
+	private static void assertScansMatch(Date start, Date end) throws Exception {
+		timer.setParallel(false);
+		final List<String> sequential = TimerLogs.scan(timer, start, end);
+		final List<String> sessions = TimerLogs.sessions(timer, start, end);
+
+		timer.setParallel(true);
+		assertEquals(sequential, TimerLogs.scan(timer, start, end));
+		assertEquals(sessions, TimerLogs.sessions(timer, start, end));
+	}
+
+	@Test
+	public void parallelScanMatchesSequentialScan() throws Exception {
+		assertScansMatch(null, null);
+	}
+
+	@Test
+	public void parallelScanMatchesSequentialScanOfRange() throws Exception {
+		assertScansMatch(TimerLogs.date(2007, 3, 14), TimerLogs.date(2019, 11, 2));
+		assertScansMatch(TimerLogs.date(2041, 6, 1), null);
+	}
+
+	@Test
+	public void parallelTotalsMatchSequentialTotals() throws Exception {
+		final File rollup = new File(TimerRollup.rollupFilePath(TimerLogs.logFilePath(timer)));
+
+		rollup.delete();
+		timer.setParallel(false);
+		final List<String> sequential = TimerLogs.totals(timer, null, null);
+
+		rollup.delete();
+		timer.setParallel(true);
+		assertEquals(sequential, TimerLogs.totals(timer, null, null));
+	}
+}
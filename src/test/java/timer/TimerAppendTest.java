@@ -0,0 +1,136 @@
+package timer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import timer.exception.BadLogFileException;
+import timer.exception.TimerAlreadyRunningException;
+
+public class TimerAppendTest {
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private Timer timer;
+	private String logFilePath;
+
+	@Before
+	public void createLog() throws Exception {
+		timer = TimerLogs.timer(folder.getRoot(), false);
+		logFilePath = TimerLogs.logFilePath(timer);
+	}
+
+	// Another invocation on the same log, with a status of its own
+	private Timer other() {
+		final File status = new File(folder.getRoot(), "other");
+		status.mkdirs();
+		return new Timer(timer.getDirectory(), status.getPath());
+	}
+
+	private List<String> lines() throws Exception {
+		return Files.readAllLines(new File(logFilePath).toPath(), StandardCharsets.UTF_8);
+	}
+
+	// The lock can only be had once it's been let go of
+	private void assertUnlocked() throws Exception {
+		TimerLock.acquire(logFilePath).close();
+	}
+
+	@Test
+	public void appendsEachEntry() throws Exception {
+		timer.start("JOB-1", false);
+		assertEquals(1, lines().size());
+		timer.pause();
+		timer.resume("JOB-2");
+		timer.stop();
+
+		final List<String> lines = lines();
+		assertEquals(4, lines.size());
+		assertTrue(lines.get(3).endsWith(",JOB-2"));
+		assertEquals(TimerStatus.Status.STOPPED, timer.status().getStatus());
+		assertUnlocked();
+	}
+
+	@Test
+	public void holdsEntriesUntilCommit() throws Exception {
+		timer.setGroupCommit(true);
+		timer.start("JOB-1", false);
+		timer.pause();
+		timer.resume(null);
+		timer.stop();
+
+		// Seen by the timer itself, but not written
+		assertEquals(0l, new File(logFilePath).length());
+		assertFalse(new File(timer.getStatusDirectory(), Timer.STATUS_FILE).exists());
+		assertEquals(TimerStatus.Status.STOPPED, timer.status().getStatus());
+
+		timer.commit();
+		assertEquals(4, lines().size());
+		assertTrue(new File(timer.getStatusDirectory(), Timer.STATUS_FILE).exists());
+		assertEquals(TimerStatus.Status.STOPPED, timer.status().getStatus());
+		assertUnlocked();
+
+		// Nothing left to write
+		final long length = new File(logFilePath).length();
+		timer.commit();
+		assertEquals(length, new File(logFilePath).length());
+	}
+
+	@Test
+	public void checksLatestEntryOfLog() throws Exception {
+		timer.start("JOB-1", false);
+
+		try {
+			other().start("JOB-2", false);
+			fail();
+		} catch (TimerAlreadyRunningException e) {
+			// The other invocation reads the entry this one wrote
+		}
+
+		assertEquals(1, lines().size());
+		assertUnlocked();
+	}
+
+	@Test
+	public void rejectsHeldEntriesThatNoLongerFollowLog() throws Exception {
+		final Timer other = other();
+		timer.setGroupCommit(true);
+		other.setGroupCommit(true);
+
+		// Both checked against the same empty log
+		timer.start("JOB-1", false);
+		other.start("JOB-2", false);
+
+		timer.commit();
+		try {
+			other.commit();
+			fail();
+		} catch (BadLogFileException e) {
+			// Held back while the log moved on
+		}
+
+		final List<String> lines = lines();
+		assertEquals(1, lines.size());
+		assertTrue(lines.get(0).endsWith(",JOB-1"));
+		assertNull(other.status());
+		assertUnlocked();
+
+		// The entries the log already has carry on as before
+		timer.stop();
+		timer.commit();
+		assertEquals(2, lines().size());
+		assertEquals(1, timer.detail(null, null).size());
+	}
+}
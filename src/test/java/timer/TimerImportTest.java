@@ -0,0 +1,142 @@
+package timer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import timer.exception.BadEventException;
+import timer.exception.BadTaskNameException;
+import timer.exception.NoTaskSpecifiedException;
+import timer.exception.TimerAlreadyRunningException;
+import timer.exception.TimerNotRunningException;
+
+public class TimerImportTest {
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private Timer timer;
+	private String logFilePath;
+
+	@Before
+	public void createLog() throws Exception {
+		timer = TimerLogs.timer(folder.getRoot(), false);
+		logFilePath = TimerLogs.logFilePath(timer);
+	}
+
+	private int importEvents(String events) throws Exception {
+		try (final BufferedReader reader = new BufferedReader(new StringReader(events))) {
+			return timer.importEvents(reader);
+		}
+	}
+
+	// The event the import stopped at, having written nothing
+	private BadEventException rejected(String events) throws Exception {
+		final long length = new File(logFilePath).length();
+		final TimerStatus status = timer.status();
+		try {
+			importEvents(events);
+			fail();
+			return null;
+		} catch (BadEventException e) {
+			assertEquals(length, new File(logFilePath).length());
+			assertEquals(status != null ? status.getStatus() : null,
+					timer.status() != null ? timer.status().getStatus() : null);
+			return e;
+		}
+	}
+
+	private List<String> lines() throws Exception {
+		return Files.readAllLines(new File(logFilePath).toPath(), StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void importsEvents() throws Exception {
+		assertEquals(4, importEvents("# Monday\n" + "2024-03-04 09:00:00,start,JOB-1\n" + "\n"
+				+ "2024-03-04 10:00:00 , pause\n" + "   \n" + "2024-03-04 10:30:00.000 +0000,RESUME,JOB-2\n"
+				+ "  # done\n" + "2024-03-04 11:00:00,stop\n"));
+
+		final List<String> lines = lines();
+		assertEquals(4, lines.size());
+		assertTrue(lines.get(3).endsWith(",JOB-2"));
+		assertEquals(TimerStatus.Status.STOPPED, timer.status().getStatus());
+		assertFalse(timer.isGroupCommit());
+	}
+
+	@Test
+	public void rejectsBadTimes() throws Exception {
+		BadEventException e =
+				rejected("2024-03-04 09:00:00,start,JOB-1\n" + "# next\n" + "2024-03-04 25:00:00,pause\n");
+		assertEquals(3l, e.getLine());
+		assertNull(e.getCause());
+
+		e = rejected("\n" + "2024-03-04 09:00:00\n");
+		assertEquals(2l, e.getLine());
+
+		e = rejected("yesterday,start,JOB-1\n");
+		assertEquals(1l, e.getLine());
+	}
+
+	@Test
+	public void rejectsTimesOutOfOrder() throws Exception {
+		final BadEventException e = rejected(
+				"2024-03-04 09:00:00,start,JOB-1\n" + "2024-03-04 10:00:00,pause\n" + "2024-03-04 09:30:00,resume\n");
+		assertEquals(3l, e.getLine());
+		assertNull(e.getCause());
+		assertEquals(0, lines().size());
+	}
+
+	@Test
+	public void rejectsTimesBeforeLog() throws Exception {
+		importEvents("2024-03-04 09:00:00,start,JOB-1\n" + "2024-03-04 10:00:00,stop\n");
+		assertEquals(1l, rejected("2024-03-04 09:59:59,start,JOB-2\n").getLine());
+		assertEquals(2, lines().size());
+
+		// The same time as the end of the log is still after it
+		assertEquals(1, importEvents("2024-03-04 10:00:00,start,JOB-2\n"));
+	}
+
+	@Test
+	public void rejectsUnknownEvents() throws Exception {
+		final BadEventException e = rejected("2024-03-04 09:00:00,start,JOB-1\n" + "2024-03-04 09:10:00,lunch\n");
+		assertEquals(2l, e.getLine());
+		assertNull(e.getCause());
+	}
+
+	@Test
+	public void givesTimerExceptionAsCause() throws Exception {
+		assertTrue(rejected("2024-03-04 09:00:00,pause\n").getCause() instanceof TimerNotRunningException);
+		assertTrue(rejected("2024-03-04 09:00:00,start\n").getCause() instanceof NoTaskSpecifiedException);
+		assertTrue(rejected("2024-03-04 09:00:00,start,JOB-1,JOB-2\n").getCause() instanceof BadTaskNameException);
+
+		final BadEventException e = rejected("2024-03-04 09:00:00,start,JOB-1\n" + "2024-03-04 09:05:00,stop\n"
+				+ "2024-03-04 09:10:00,start,JOB-2\n" + "2024-03-04 09:15:00,start,JOB-3\n");
+		assertEquals(4l, e.getLine());
+		assertTrue(e.getCause() instanceof TimerAlreadyRunningException);
+	}
+
+	@Test
+	public void carriesOnAfterRejectedImport() throws Exception {
+		rejected("2024-03-04 09:00:00,start,JOB-1\n" + "2024-03-04 09:10:00,lunch\n");
+
+		// Nothing of the rejected events is held back either
+		assertEquals(2, importEvents("2024-03-04 09:00:00,start,JOB-2\n" + "2024-03-04 09:10:00,stop\n"));
+		final List<String> lines = lines();
+		assertEquals(2, lines.size());
+		assertTrue(lines.get(0).endsWith(",JOB-2"));
+		assertEquals(TimerStatus.Status.STOPPED, timer.status().getStatus());
+	}
+}
@@ -0,0 +1,149 @@
+package timer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.text.SimpleDateFormat;
+import java.util.Random;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+import timer.exception.BadLogFileException;
+
+public class TimerLogRecordTest {
+	private static final String LINE =
+			"2024-03-01 09:00:00.000 +0100,2024-03-01 09:15:30.250 +0100,2024-03-01 10:00:00.999 +0100,JIRA-37";
+
+	private final TimerLogRecord record = new TimerLogRecord();
+
+	private static long parseDate(String date) throws Exception {
+		return new SimpleDateFormat(TimerLog.DATE_FORMAT).parse(date).getTime();
+	}
+
+	@Test
+	public void parsesLine() throws Exception {
+		assertTrue(record.parse(LINE));
+		assertEquals(parseDate("2024-03-01 09:00:00.000 +0100"), record.getAnchor());
+		assertEquals(parseDate("2024-03-01 09:15:30.250 +0100"), record.getStart());
+		assertEquals(parseDate("2024-03-01 10:00:00.999 +0100"), record.getEnd());
+		assertEquals("JIRA-37", record.getTask());
+		assertTrue(record.taskEquals("JIRA-37"));
+		assertFalse(record.taskEquals("JIRA-3"));
+		assertEquals("JIRA-37".hashCode(), record.taskHashCode());
+	}
+
+	@Test
+	public void decodesDatesAsSimpleDateFormatDoes() throws Exception {
+		final Random random = new Random(2);
+		for (String zone : new String[] { "UTC", "Europe/London", "America/St_Johns", "Asia/Kolkata",
+				"Pacific/Chatham" }) {
+			final SimpleDateFormat dateFormat = new SimpleDateFormat(TimerLog.DATE_FORMAT);
+			dateFormat.setTimeZone(TimeZone.getTimeZone(zone));
+			for (int i = 0; i < 1000; i++) {
+				// From 1970 to about 2100
+				final long time = (long) (random.nextDouble() * 4102444800000l);
+				final String date = dateFormat.format(time);
+				assertTrue(record.parse(date + "," + date + "," + date + ",task"));
+				assertEquals(date, time, record.getAnchor());
+				assertEquals(date, time, record.getStart());
+				assertEquals(date, time, record.getEnd());
+			}
+		}
+	}
+
+	@Test
+	public void readsMissingDatesAsNone() throws Exception {
+		assertTrue(record.parse("2024-03-01 09:00:00.000 +0100,2024-03-01 09:00:00.000 +0100,null,JIRA-37"));
+		assertTrue(record.hasStart());
+		assertFalse(record.hasEnd());
+
+		assertTrue(record.parse(",  NULL ,,JIRA-37"));
+		assertFalse(record.hasAnchor());
+		assertFalse(record.hasStart());
+		assertFalse(record.hasEnd());
+		assertNull(record.toTimerLog().getAnchor());
+	}
+
+	@Test
+	public void leavesUnusualDatesToSimpleDateFormat() throws Exception {
+		// Not in the exact format, and out of range, both of which the lenient format has always accepted
+		assertTrue(record.parse("2024-3-1 9:00:00.000 +0100,2023-02-29 09:00:00.000 +0000,null,task"));
+		assertEquals(parseDate("2024-03-01 09:00:00.000 +0100"), record.getAnchor());
+		assertEquals(parseDate("2023-03-01 09:00:00.000 +0000"), record.getStart());
+	}
+
+	@Test(expected = BadLogFileException.class)
+	public void rejectsBadDates() throws Exception {
+		record.parse("yesterday,2024-03-01 09:00:00.000 +0100,null,task");
+	}
+
+	@Test(expected = BadLogFileException.class)
+	public void rejectsTooFewFields() throws Exception {
+		record.parse("2024-03-01 09:00:00.000 +0100,2024-03-01 09:00:00.000 +0100,null");
+	}
+
+	@Test(expected = BadLogFileException.class)
+	public void rejectsTooManyFields() throws Exception {
+		record.parse("2024-03-01 09:00:00.000 +0100,2024-03-01 09:00:00.000 +0100,null,task,more");
+	}
+
+	@Test
+	public void dropsTrailingEmptyFields() throws Exception {
+		assertTrue(record.parse("2024-03-01 09:00:00.000 +0100,2024-03-01 09:00:00.000 +0100,null,task,,"));
+		assertEquals("task", record.getTask());
+
+		assertTrue(record.parse("2024-03-01 09:00:00.000 +0100,2024-03-01 09:00:00.000 +0100,null, "));
+		assertEquals("", record.getTask());
+		assertTrue(record.isTaskBlank());
+	}
+
+	@Test(expected = BadLogFileException.class)
+	public void rejectsEmptyLastFieldAsSplitDid() throws Exception {
+		record.parse("2024-03-01 09:00:00.000 +0100,2024-03-01 09:00:00.000 +0100,null,");
+	}
+
+	@Test
+	public void skipsBlankLines() throws Exception {
+		assertFalse(record.parse((String) null));
+		assertFalse(record.parse(""));
+		assertFalse(record.parse(" \t\r"));
+	}
+
+	@Test
+	public void trimsTasks() throws Exception {
+		assertTrue(record.parse("2024-03-01 09:00:00.000 +0100,2024-03-01 09:00:00.000 +0100,null,  JIRA-37 \r"));
+		assertEquals("JIRA-37", record.getTask());
+		assertTrue(record.taskEquals("JIRA-37"));
+
+		assertTrue(record.parse("2024-03-01 09:00:00.000 +0100,2024-03-01 09:00:00.000 +0100,null,Null"));
+		assertTrue(record.isTaskBlank());
+	}
+
+	@Test
+	public void forgetsThePreviousLine() throws Exception {
+		final StringBuilder task = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			task.append('x');
+		}
+
+		assertTrue(record.parse(LINE.replace("JIRA-37", task)));
+		assertEquals(task.toString(), record.getTask());
+
+		final char[] chars = ("  " + LINE.replace("JIRA-37", "B") + "  ").toCharArray();
+		assertTrue(record.parse(chars, 2, chars.length - 2));
+		assertEquals("B", record.getTask());
+		assertEquals(parseDate("2024-03-01 10:00:00.999 +0100"), record.getEnd());
+	}
+
+	@Test
+	public void holdsRecordsThatAreSet() {
+		record.set(1l, 2l, TimerLogRecord.NONE, "null");
+		assertTrue(record.isTaskBlank());
+		assertFalse(record.hasEnd());
+		assertEquals("null".hashCode(), record.taskHashCode());
+		assertTrue(record.taskEquals("null"));
+	}
+}
@@ -0,0 +1,170 @@
+package timer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import timer.report.DetailAggregator;
+import timer.report.MergeableReportEngine;
+import timer.report.ReportEngine;
+import timer.report.TaskAggregator;
+
+/**
+ * Generated logs and the reports on them in a form that can be compared, for checking that the different ways of
+ * reading a log agree.
+ */
+final class TimerLogs {
+	private static final String EVENT_DATE_FORMAT = "yyyy-MM-dd HH:mm:ss";
+
+	private TimerLogs() {}
+
+	/**
+	 * Events for the given number of days from the start, made up from the seed, with a few intervals a day, some of
+	 * them running past midnight, between a start and a stop.
+	 */
+	static String events(long seed, Date start, int days) {
+		final Random random = new Random(seed);
+		final SimpleDateFormat dateFormat = new SimpleDateFormat(EVENT_DATE_FORMAT);
+		final Calendar day = Calendar.getInstance();
+		day.setTime(start);
+
+		final StringBuilder result = new StringBuilder();
+		for (int i = 0; i < days; i++, day.add(Calendar.DAY_OF_MONTH, 1)) {
+			if (random.nextInt(7) == 0) {
+				continue;
+			}
+
+			// Late days are kept short enough to stop before the next one starts
+			final boolean late = random.nextInt(10) == 0;
+			final Calendar time = (Calendar) day.clone();
+			time.add(Calendar.MINUTE, late ? 22 * 60 : 8 * 60 + random.nextInt(120));
+			time.add(Calendar.SECOND, random.nextInt(60));
+			result.append(dateFormat.format(time.getTime())).append(",start,JOB-").append(random.nextInt(40))
+					.append('\n');
+
+			final int intervals = 1 + random.nextInt(late ? 2 : 6);
+			for (int j = 1; j < intervals; j++) {
+				time.add(Calendar.MINUTE, 5 + random.nextInt(90));
+				result.append(dateFormat.format(time.getTime())).append(",pause\n");
+
+				time.add(Calendar.MINUTE, 1 + random.nextInt(30));
+				result.append(dateFormat.format(time.getTime())).append(",resume");
+				if (random.nextBoolean()) {
+					result.append(",JOB-").append(random.nextInt(40));
+				}
+
+				result.append('\n');
+			}
+
+			time.add(Calendar.MINUTE, 5 + random.nextInt(90));
+			result.append(dateFormat.format(time.getTime())).append(",stop\n");
+		}
+
+		return result.toString();
+	}
+
+	static Date date(int year, int month, int day) {
+		final Calendar result = Calendar.getInstance();
+		result.clear();
+		result.set(year, month - 1, day);
+		return result.getTime();
+	}
+
+	/**
+	 * A timer for a directory of its own, with a status directory of its own so that timers don't see each other. New
+	 * logs are rolled into segments, so a log that isn't is started empty.
+	 */
+	static Timer timer(File directory, boolean segmented) throws IOException {
+		final File project = new File(directory, "project"), status = new File(directory, "status");
+		project.mkdirs();
+		status.mkdirs();
+		if (!segmented) {
+			new File(project, Timer.LOG_FILE).createNewFile();
+		}
+
+		return new Timer(project.getPath(), status.getPath());
+	}
+
+	static void write(Timer timer, String events) throws Exception {
+		try (final BufferedReader reader = new BufferedReader(new StringReader(events))) {
+			timer.importEvents(reader);
+		}
+	}
+
+	static String logFilePath(Timer timer) {
+		return new File(timer.getDirectory(), Timer.LOG_FILE).getPath();
+	}
+
+	static List<String> detail(List<TimerDetail> details) {
+		final List<String> result = new ArrayList<>();
+		for (TimerDetail detail : details) {
+			result.add(detail.getDate().getTime() + " " + detail.getTimeSpent());
+		}
+
+		return result;
+	}
+
+	static List<String> summary(List<TimerSummary> summaries) {
+		final List<String> result = new ArrayList<>();
+		for (TimerSummary summary : summaries) {
+			result.add(summary.getDate().getTime() + " " + summary.getTime());
+		}
+
+		return result;
+	}
+
+	static List<String> task(List<TimerTaskReport> tasks) {
+		final List<String> result = new ArrayList<>();
+		for (TimerTaskReport task : tasks) {
+			result.add(task.getTask() + " " + task.getTimeSpent());
+		}
+
+		return result;
+	}
+
+	static List<String> sessions(Timer timer, Date start, Date end) throws Exception {
+		return sessions(timer.sessions(start, end));
+	}
+
+	static List<String> sessions(List<TimerDistribution> distributions) {
+		final List<String> result = new ArrayList<>();
+		for (TimerDistribution distribution : distributions) {
+			result.add(distribution.format());
+		}
+
+		return result;
+	}
+
+	/**
+	 * The detail and tasks from one read of the log itself.
+	 */
+	static List<String> scan(Timer timer, Date start, Date end) throws Exception {
+		final DetailAggregator detail = new DetailAggregator();
+		final TaskAggregator task = new TaskAggregator();
+		timer.report(new MergeableReportEngine(start, end, detail, task));
+
+		final List<String> result = new ArrayList<>(detail(detail.results()));
+		result.addAll(task(task.results()));
+		return result;
+	}
+
+	/**
+	 * The detail and tasks from the persisted totals.
+	 */
+	static List<String> totals(Timer timer, Date start, Date end) throws Exception {
+		final DetailAggregator detail = new DetailAggregator();
+		final TaskAggregator task = new TaskAggregator();
+		timer.reportTotals(new ReportEngine(start, end, detail, task));
+
+		final List<String> result = new ArrayList<>(detail(detail.results()));
+		result.addAll(task(task.results()));
+		return result;
+	}
+}
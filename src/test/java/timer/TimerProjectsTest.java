@@ -0,0 +1,71 @@
+package timer;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import timer.exception.BadLogFileException;
+import timer.lib.Metrics;
+import timer.report.Dimension;
+
+public class TimerProjectsTest {
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	// Projects registered with the same status directory, so that they're reported on together
+	private Timer project(String name, String events) throws Exception {
+		final File directory = new File(folder.getRoot(), name), status = new File(folder.getRoot(), "status");
+		directory.mkdirs();
+		status.mkdirs();
+
+		final Timer timer = new Timer(directory.getPath(), status.getPath());
+		TimerLogs.write(timer, events);
+		return timer;
+	}
+
+	private String statusDirectory() {
+		return new File(folder.getRoot(), "status").getPath();
+	}
+
+	private static List<String> groups(List<TimerGroup> groups) {
+		final List<String> result = new ArrayList<>();
+		for (TimerGroup group : groups) {
+			result.add(group.getProject() + " " + group.getTask() + " " + group.getTimeSpent());
+		}
+
+		return result;
+	}
+
+	@Test
+	public void reportsOnEveryProject() throws Exception {
+		project("alpha", "2024-03-04 09:00:00,start,JOB-1\n2024-03-04 10:00:00,stop\n");
+		project("beta", "2024-03-04 09:00:00,start,JOB-1\n2024-03-04 09:30:00,pause\n"
+				+ "2024-03-04 09:30:00,resume,JOB-2\n2024-03-04 11:00:00,stop\n");
+
+		assertEquals("{alpha=3600, beta=7200}",
+				Timer.projects(statusDirectory(), null, null).getTimeSpent().toString());
+		assertEquals(Arrays.asList("alpha JOB-1 3600", "beta JOB-1 1800", "beta JOB-2 5400"),
+				groups(Timer.query(statusDirectory(), null, null, null,
+						Arrays.asList(Dimension.PROJECT, Dimension.TASK), Metrics.DISABLED)));
+	}
+
+	@Test(expected = BadLogFileException.class)
+	public void failsWithAnyProject() throws Exception {
+		project("alpha", "2024-03-04 09:00:00,start,JOB-1\n2024-03-04 10:00:00,stop\n");
+		final Timer beta = project("beta", "2024-03-04 09:00:00,start,JOB-1\n2024-03-04 10:00:00,stop\n");
+
+		try (final FileWriter writer = new FileWriter(TimerLogs.logFilePath(beta), true)) {
+			writer.write("not an entry\n");
+		}
+
+		Timer.query(statusDirectory(), null, null, null, Arrays.asList(Dimension.PROJECT), Metrics.DISABLED);
+	}
+}
@@ -0,0 +1,122 @@
+package timer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Date;
+import java.util.zip.CRC32;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import timer.lib.Crc32;
+import timer.report.DetailAggregator;
+import timer.report.MergeableReportEngine;
+import timer.report.SummaryAggregator;
+
+public class TimerRollupTest {
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private Timer timer;
+	private String logFilePath;
+
+	@Before
+	public void createLog() throws Exception {
+		timer = TimerLogs.timer(folder.getRoot(), false);
+		logFilePath = TimerLogs.logFilePath(timer);
+		TimerLogs.write(timer, TimerLogs.events(2, TimerLogs.date(2023, 1, 1), 400));
+	}
+
+	private void assertTotalsMatchScan() throws Exception {
+		assertEquals(TimerLogs.scan(timer, null, null), TimerLogs.totals(timer, null, null));
+
+		final Date start = TimerLogs.date(2023, 3, 15), end = TimerLogs.date(2023, 9, 1);
+		assertEquals(TimerLogs.scan(timer, start, end), TimerLogs.totals(timer, start, end));
+		assertEquals(TimerLogs.scan(timer, end, null), TimerLogs.totals(timer, end, null));
+	}
+
+	@Test
+	public void totalsMatchScan() throws Exception {
+		assertTotalsMatchScan();
+		assertTrue(new File(TimerRollup.rollupFilePath(logFilePath)).isFile());
+
+		// From the saved totals this time
+		assertTotalsMatchScan();
+	}
+
+	@Test
+	public void totalsFollowAppends() throws Exception {
+		assertTotalsMatchScan();
+		TimerLogs.write(timer, TimerLogs.events(3, TimerLogs.date(2024, 2, 10), 60));
+		assertTotalsMatchScan();
+
+		timer.setParallel(true);
+		TimerLogs.write(timer, TimerLogs.events(4, TimerLogs.date(2024, 5, 1), 30));
+		assertTotalsMatchScan();
+	}
+
+	@Test
+	public void streamsFromTotals() throws Exception {
+		final SummaryAggregator summary = new SummaryAggregator();
+		final DetailAggregator detail = new DetailAggregator();
+		timer.report(new MergeableReportEngine(null, null, summary, detail));
+
+		assertEquals(TimerLogs.summary(summary.results()), TimerLogs.summary(timer.summary(null, null)));
+		assertTrue(new File(TimerRollup.rollupFilePath(logFilePath)).isFile());
+		assertEquals(TimerLogs.detail(detail.results()), TimerLogs.detail(timer.detail(null, null)));
+	}
+
+	@Test
+	public void appendsKeepTotalsCurrent() throws Exception {
+		TimerLogs.totals(timer, null, null);
+		final long covered = TimerRollup.load(logFilePath).getOffset();
+
+		TimerLogs.write(timer, "2024-03-01 09:00:00,start,JOB-1\n2024-03-01 09:30:00,pause\n");
+		TimerLogs.write(timer, "2024-03-01 09:45:00,resume\n");
+
+		// Still covering only what it did, but without having to read that again to be trusted
+		final TimerRollup rollup = TimerRollup.load(logFilePath);
+		assertEquals(covered, rollup.getOffset());
+		assertTrue(rollup.getOffset() < new File(logFilePath).length());
+		assertTrue(rollup.isCurrent());
+		assertTotalsMatchScan();
+	}
+
+	@Test
+	public void rebuildsTotalsOfEditedLog() throws Exception {
+		TimerLogs.totals(timer, null, null);
+
+		// The same length, but no longer the same entries
+		final long modified = new File(logFilePath).lastModified();
+		try (final RandomAccessFile file = new RandomAccessFile(logFilePath, "rw")) {
+			final String line = file.readLine();
+			file.seek(line.indexOf(",JOB-") + 5);
+			file.write(line.charAt(line.indexOf(",JOB-") + 5) == '9' ? '8' : '9');
+		}
+		new File(logFilePath).setLastModified(modified + 2000);
+
+		assertFalse(TimerRollup.load(logFilePath).isCurrent());
+		assertEquals(0l, TimerRollup.load(logFilePath).getOffset());
+		assertTotalsMatchScan();
+	}
+
+	@Test
+	public void carriesChecksumOn() throws Exception {
+		final byte[] bytes = Files.readAllBytes(new File(logFilePath).toPath());
+		final CRC32 crc = new CRC32();
+		crc.update(bytes, 0, bytes.length);
+
+		final long half = TimerRollup.checksum(logFilePath, 0l, bytes.length / 2, 0l);
+		assertEquals(crc.getValue(), TimerRollup.checksum(logFilePath, bytes.length / 2, bytes.length, half));
+		assertEquals(crc.getValue(), Crc32.update(Crc32.update(0l, bytes, 0, 7), bytes, 7, bytes.length - 7));
+		assertNotEquals(crc.getValue(), half);
+	}
+}
@@ -0,0 +1,67 @@
+package timer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Date;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TimerSegmentTest {
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private Timer log;
+	private Timer segmented;
+
+	private void write(long seed, Date start, int days) throws Exception {
+		final String events = TimerLogs.events(seed, start, days);
+		TimerLogs.write(log, events);
+		TimerLogs.write(segmented, events);
+	}
+
+	// The segmented log's reports against those of the same entries left in the log itself
+	private void assertReportsMatch(Date start, Date end) throws Exception {
+		assertEquals(TimerLogs.scan(log, start, end), TimerLogs.scan(segmented, start, end));
+		assertEquals(TimerLogs.scan(log, start, end), TimerLogs.totals(segmented, start, end));
+		assertEquals(TimerLogs.sessions(log, start, end), TimerLogs.sessions(segmented, start, end));
+		assertEquals(TimerLogs.summary(log.summary(start, end)), TimerLogs.summary(segmented.summary(start, end)));
+	}
+
+	private void assertReportsMatch() throws Exception {
+		assertTrue(TimerSegment.list(TimerLogs.logFilePath(segmented), null, null).size() > 1);
+
+		assertReportsMatch(null, null);
+		assertReportsMatch(TimerLogs.date(2023, 3, 15), TimerLogs.date(2023, 9, 1));
+		assertReportsMatch(TimerLogs.date(2023, 12, 20), null);
+	}
+
+	@Test
+	public void rolledLogMatchesLog() throws Exception {
+		log = TimerLogs.timer(new File(folder.getRoot(), "log"), false);
+		segmented = TimerLogs.timer(new File(folder.getRoot(), "segmented"), true);
+		write(4, TimerLogs.date(2023, 1, 1), 400);
+		assertReportsMatch();
+
+		write(5, TimerLogs.date(2024, 2, 10), 60);
+		assertReportsMatch();
+	}
+
+	@Test
+	public void splitLogMatchesLog() throws Exception {
+		log = TimerLogs.timer(new File(folder.getRoot(), "log"), false);
+		segmented = TimerLogs.timer(new File(folder.getRoot(), "segmented"), false);
+		write(4, TimerLogs.date(2023, 1, 1), 400);
+
+		// With totals saved before the split, which have to be left behind with it
+		assertEquals(TimerLogs.scan(log, null, null), TimerLogs.totals(segmented, null, null));
+		segmented.segment();
+		assertReportsMatch();
+
+		write(5, TimerLogs.date(2024, 2, 10), 60);
+		assertReportsMatch();
+	}
+}
@@ -0,0 +1,220 @@
+package timer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import timer.report.MergeableReportEngine;
+import timer.report.ReportEngine;
+import timer.report.TaskAggregator;
+
+public class TimerTaskIndexTest {
+	private static final String[] TASKS = { "TASK-A", "TASK-B", "TASK-C", "TASK-D", "TASK-E" };
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private Timer timer;
+	private String logFilePath;
+
+	private void createLog(boolean segmented) throws Exception {
+		timer = TimerLogs.timer(folder.getRoot(), segmented);
+		logFilePath = TimerLogs.logFilePath(timer);
+	}
+
+	private File indexFile() {
+		return new File(TimerTaskIndex.indexFilePath(logFilePath));
+	}
+
+	// The tasks as read through the index
+	private List<String> indexed(Predicate<String> filter) throws Exception {
+		final TaskAggregator task = new TaskAggregator();
+		final ReportEngine engine = new ReportEngine(null, null, task);
+		engine.setTaskFilter(filter);
+		TimerTaskIndex.find(logFilePath, filter).scan(logFilePath, 0l, engine);
+
+		return TimerLogs.task(task.results());
+	}
+
+	// The tasks as read from the whole log
+	private List<String> expected(Predicate<String> filter) throws Exception {
+		final TaskAggregator task = new TaskAggregator();
+		timer.report(new MergeableReportEngine(null, null, task));
+
+		final List<String> result = new ArrayList<>();
+		for (TimerTaskReport report : task.results()) {
+			if (filter.test(report.getTask())) {
+				result.add(report.getTask() + " " + report.getTimeSpent());
+			}
+		}
+
+		return result;
+	}
+
+	private void assertFinds(Predicate<String> filter) throws Exception {
+		assertEquals(expected(filter), indexed(filter));
+	}
+
+	private void assertFinds() throws Exception {
+		assertFinds(task -> task.equals("JOB-1"));
+		assertFinds(task -> task.startsWith("JOB-1"));
+		assertFinds(task -> task.startsWith("TASK-"));
+		assertFinds(task -> task.equals("JOB-99"));
+	}
+
+	// An entry of the tasks each day from the start, each written on its own
+	private void append(Calendar day, String... tasks) throws Exception {
+		final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+		for (String task : tasks) {
+			day.add(Calendar.DAY_OF_MONTH, 1);
+			final Calendar time = (Calendar) day.clone();
+			time.add(Calendar.HOUR_OF_DAY, 9);
+			final String start = dateFormat.format(time.getTime());
+			time.add(Calendar.MINUTE, 30);
+			TimerLogs.write(timer, start + ",start," + task + "\n" + dateFormat.format(time.getTime()) + ",stop\n");
+		}
+	}
+
+	private static int count(byte[] bytes, String name) {
+		final byte[] target = name.getBytes(StandardCharsets.UTF_8);
+		int result = 0;
+		for (int i = 0; i + target.length <= bytes.length; i++) {
+			if (Arrays.equals(Arrays.copyOfRange(bytes, i, i + target.length), target)) {
+				result++;
+			}
+		}
+
+		return result;
+	}
+
+	@Test
+	public void findsEntriesOfTasks() throws Exception {
+		createLog(false);
+		TimerLogs.write(timer, TimerLogs.events(7, TimerLogs.date(2023, 1, 1), 200));
+		assertFinds();
+		assertFinds(task -> true);
+	}
+
+	@Test
+	public void appendsToIndex() throws Exception {
+		createLog(false);
+		TimerLogs.write(timer, TimerLogs.events(7, TimerLogs.date(2023, 1, 1), 200));
+		final Calendar day = Calendar.getInstance();
+		day.setTime(TimerLogs.date(2024, 1, 1));
+
+		for (int i = 0; i < 40; i++) {
+			final byte[] before = Files.readAllBytes(indexFile().toPath());
+			append(day, TASKS[i % 3 == 0 ? i % TASKS.length : 0]);
+
+			// Added to rather than written again
+			final byte[] after = Files.readAllBytes(indexFile().toPath());
+			assertTrue(after.length > before.length);
+			assertArrayEquals(before, Arrays.copyOf(after, before.length));
+		}
+
+		assertFinds();
+	}
+
+	@Test
+	public void storesEachNameOnce() throws Exception {
+		createLog(false);
+		final Calendar day = Calendar.getInstance();
+		day.setTime(TimerLogs.date(2024, 1, 1));
+		for (int i = 0; i < 200; i++) {
+			append(day, TASKS[i % TASKS.length]);
+			if (i % 50 == 0) {
+				assertFinds();
+			}
+		}
+		append(day, TASKS[0], TASKS[0], TASKS[0]);
+
+		final byte[] index = Files.readAllBytes(indexFile().toPath());
+		for (String task : TASKS) {
+			assertEquals(1, count(index, task));
+		}
+		assertFinds();
+		assertFinds(task -> task.equals("TASK-A"));
+	}
+
+	@Test
+	public void findsMonthsOfSegments() throws Exception {
+		createLog(true);
+		TimerLogs.write(timer, TimerLogs.events(4, TimerLogs.date(2023, 1, 1), 400));
+
+		final List<TimerSegment> segments = TimerSegment.list(logFilePath, null, null);
+		assertTrue(segments.size() > 1);
+		for (String name : new String[] { "JOB-3", "JOB-39" }) {
+			final TimerTaskIndex index = TimerTaskIndex.find(logFilePath, task -> task.equals(name));
+			boolean found = false;
+			for (TimerSegment segment : segments) {
+				final TaskAggregator tasks = new TaskAggregator();
+				final ReportEngine engine = new ReportEngine(null, null, tasks);
+				engine.setTaskFilter(task -> task.equals(name));
+				segment.replay(engine);
+
+				final boolean has = index.hasMonth(TimerSegment.monthStart(segment.getMinAnchor()));
+				assertEquals(!tasks.results().isEmpty(), has);
+				found |= has;
+			}
+			assertTrue(found);
+		}
+		assertFalse(TimerTaskIndex.find(logFilePath, task -> false)
+				.hasMonth(TimerSegment.monthStart(segments.get(0).getMinAnchor())));
+	}
+
+	@Test
+	public void rebuildsForEditedLog() throws Exception {
+		createLog(false);
+		TimerLogs.write(timer, TimerLogs.events(7, TimerLogs.date(2023, 1, 1), 200));
+		assertFinds();
+
+		// The same length, with the tasks moved about
+		final String log = new String(Files.readAllBytes(new File(logFilePath).toPath()), StandardCharsets.UTF_8);
+		Files.write(new File(logFilePath).toPath(),
+				log.replace("JOB-1\n", "JOB-X\n").replace("JOB-2\n", "JOB-1\n").getBytes(StandardCharsets.UTF_8));
+		assertFinds();
+		assertFinds(task -> task.equals("JOB-X"));
+	}
+
+	@Test
+	public void rebuildsDamagedIndex() throws Exception {
+		createLog(false);
+		TimerLogs.write(timer, TimerLogs.events(7, TimerLogs.date(2023, 1, 1), 200));
+		assertFinds();
+
+		// Cut short
+		final long length = indexFile().length();
+		try (final RandomAccessFile file = new RandomAccessFile(indexFile(), "rw")) {
+			file.setLength(length - 10);
+		}
+		assertFinds();
+		assertEquals(length, indexFile().length());
+
+		// Overwritten between the header and the trailer
+		try (final RandomAccessFile file = new RandomAccessFile(indexFile(), "rw")) {
+			file.seek(12);
+			file.write(new byte[(int) length - 12 - 65]);
+		}
+		assertFinds();
+		assertEquals(length, indexFile().length());
+
+		indexFile().delete();
+		assertFinds();
+	}
+}
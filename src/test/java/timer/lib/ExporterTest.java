@@ -0,0 +1,99 @@
+package timer.lib;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import org.junit.Test;
+
+public class ExporterTest {
+	private final StringWriter output = new StringWriter();
+
+	private Exporter exporter(String format) {
+		return Exporter.create(format, new PrintWriter(output));
+	}
+
+	private static Date date(String date) throws Exception {
+		return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse(date);
+	}
+
+	// The date as the exporter writes it in the local time zone
+	private static String iso(Date date) {
+		return new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX").format(date);
+	}
+
+	@Test
+	public void writesJsonObjectPerRow() throws Exception {
+		final Exporter exporter = exporter("json");
+		final Date anchor = date("2024-03-01 09:30:00");
+		exporter.row("summary");
+		exporter.field("anchor", anchor);
+		exporter.field("seconds", 3600);
+		exporter.end();
+		exporter.row("query");
+		exporter.day("week", date("2024-03-04 00:00:00"));
+		exporter.field("task", (String) null);
+		exporter.end();
+
+		assertEquals("{\"report\":\"summary\",\"anchor\":\"" + iso(anchor) + "\",\"seconds\":3600}\n"
+				+ "{\"report\":\"query\",\"week\":\"2024-03-04\",\"task\":null}\n", output.toString());
+	}
+
+	@Test
+	public void escapesJsonStrings() {
+		final Exporter exporter = exporter("json");
+		exporter.row("task");
+		exporter.field("task", "say \"hi\"\\ to\n\r\tall\u0001\u001f café");
+		exporter.field("na\"me", "");
+		exporter.end();
+
+		assertEquals("{\"report\":\"task\",\"task\":\"say \\\"hi\\\"\\\\ to\\n\\r\\tall\\u0001\\u001f café\","
+				+ "\"na\\\"me\":\"\"}\n", output.toString());
+	}
+
+	@Test
+	public void writesCsvHeaderForEachReport() throws Exception {
+		final Exporter exporter = exporter("csv");
+		for (String task : new String[] { "JOB-1", "JOB-2" }) {
+			exporter.row("task");
+			exporter.field("task", task);
+			exporter.field("seconds", 60);
+			exporter.end();
+		}
+
+		exporter.row("query");
+		exporter.day("month", date("2024-03-01 00:00:00"));
+		exporter.field("seconds", 120);
+		exporter.end();
+
+		exporter.row("task");
+		exporter.field("task", "JOB-3");
+		exporter.field("seconds", 1);
+		exporter.end();
+
+		assertEquals("report,task,seconds\n" + "task,JOB-1,60\n" + "task,JOB-2,60\n" + "report,month,seconds\n"
+				+ "query,2024-03-01,120\n" + "report,task,seconds\n" + "task,JOB-3,1\n", output.toString());
+	}
+
+	@Test
+	public void quotesCsvValues() {
+		final Exporter exporter = exporter("csv");
+		for (String task : new String[] { "a,b", "say \"hi\"", "two\nlines", "back\rslash", "plain", null }) {
+			exporter.row("task");
+			exporter.field("task", task);
+			exporter.end();
+		}
+
+		assertEquals("report,task\n" + "task,\"a,b\"\n" + "task,\"say \"\"hi\"\"\"\n" + "task,\"two\nlines\"\n"
+				+ "task,\"back\rslash\"\n" + "task,plain\n" + "task,\n", output.toString());
+	}
+
+	@Test
+	public void knowsOnlyJsonAndCsv() {
+		assertNull(exporter("xml"));
+	}
+}
@@ -0,0 +1,140 @@
+package timer.lib;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class HeavyHittersTest {
+	private static final int CAPACITY = 50;
+
+	// Weights for many keys, a few of them far heavier than the rest, as time on tasks tends to be
+	private static void add(Random random, int count, HeavyHitters heavyHitters, Map<String, Long> totals) {
+		for (int i = 0; i < count; i++) {
+			final int key = (int) Math.pow(1000, random.nextDouble() * random.nextDouble());
+			final long weight = 1 + random.nextInt(100);
+			heavyHitters.add("k" + key, weight);
+			totals.merge("k" + key, weight, Long::sum);
+		}
+	}
+
+	// Every total is at least the true one and at most the error above it, with the error within the bound, and
+	// every key above the bound has a counter
+	private static void assertWithinBound(HeavyHitters heavyHitters, Map<String, Long> totals, long bound) {
+		final List<HeavyHitters.Entry> entries = heavyHitters.top(CAPACITY);
+		assertEquals(CAPACITY, entries.size());
+
+		final Map<String, HeavyHitters.Entry> byKey = new HashMap<>();
+		for (HeavyHitters.Entry entry : entries) {
+			final long total = totals.get(entry.getKey());
+			assertTrue(entry.getKey(), entry.getTotal() >= total);
+			assertTrue(entry.getKey(), entry.getTotal() - entry.getError() <= total);
+			assertTrue(entry.getKey(), entry.getError() <= heavyHitters.getError());
+			byKey.put(entry.getKey(), entry);
+		}
+
+		assertTrue(heavyHitters.getError() > 0);
+		assertTrue(heavyHitters.getError() <= bound);
+		for (Map.Entry<String, Long> total : totals.entrySet()) {
+			if (total.getValue() > bound) {
+				assertTrue(total.getKey(), byKey.containsKey(total.getKey()));
+			}
+		}
+	}
+
+	@Test
+	public void keepsExactTotalsUpToCapacity() {
+		final HeavyHitters heavyHitters = new HeavyHitters(3);
+		heavyHitters.add("a", 5);
+		heavyHitters.add("b", 7);
+		heavyHitters.add("a", 4);
+		heavyHitters.add("c", 1);
+
+		final List<HeavyHitters.Entry> top = heavyHitters.top(2);
+		assertEquals(2, top.size());
+		assertEquals("a", top.get(0).getKey());
+		assertEquals(9l, top.get(0).getTotal());
+		assertEquals("b", top.get(1).getKey());
+		assertEquals(0l, heavyHitters.getError());
+		assertEquals(17l, heavyHitters.getWeight());
+	}
+
+	@Test
+	public void ordersEqualTotalsByKey() {
+		final HeavyHitters heavyHitters = new HeavyHitters(10);
+		heavyHitters.add("c", 2);
+		heavyHitters.add("a", 2);
+		heavyHitters.add("b", 2);
+
+		final List<HeavyHitters.Entry> top = heavyHitters.top(5);
+		assertEquals(3, top.size());
+		assertEquals("a", top.get(0).getKey());
+		assertEquals("c", top.get(2).getKey());
+		assertTrue(heavyHitters.top(0).isEmpty());
+	}
+
+	@Test
+	public void takesOverSmallestCounter() {
+		final HeavyHitters heavyHitters = new HeavyHitters(2);
+		heavyHitters.add("a", 10);
+		heavyHitters.add("b", 3);
+		heavyHitters.add("c", 1);
+
+		final List<HeavyHitters.Entry> top = heavyHitters.top(2);
+		assertEquals("a", top.get(0).getKey());
+		assertEquals("c", top.get(1).getKey());
+		assertEquals(4l, top.get(1).getTotal());
+		assertEquals(3l, top.get(1).getError());
+		assertEquals(3l, heavyHitters.getError());
+	}
+
+	@Test
+	public void staysWithinBound() {
+		final Random random = new Random(20);
+		final HeavyHitters heavyHitters = new HeavyHitters(CAPACITY);
+		final Map<String, Long> totals = new HashMap<>();
+		add(random, 100000, heavyHitters, totals);
+
+		assertTrue(totals.size() > 10 * CAPACITY);
+		assertWithinBound(heavyHitters, totals, heavyHitters.getWeight() / CAPACITY);
+	}
+
+	@Test
+	public void staysWithinBoundWhenMerged() {
+		final Random random = new Random(21);
+		final HeavyHitters first = new HeavyHitters(CAPACITY), second = new HeavyHitters(CAPACITY);
+		final Map<String, Long> totals = new HashMap<>();
+		add(random, 60000, first, totals);
+		add(random, 40000, second, totals);
+
+		final long bound = first.getWeight() / CAPACITY + second.getWeight() / CAPACITY;
+		first.merge(second);
+		assertEquals(first.getWeight(), totals.values().stream().mapToLong(Long::longValue).sum());
+		assertWithinBound(first, totals, bound);
+	}
+
+	@Test
+	public void countsKeysTheOtherDroppedWhenMerged() {
+		final HeavyHitters first = new HeavyHitters(3);
+		first.add("x", 100);
+		first.add("y", 1);
+		first.add("z", 1);
+
+		// Loses its counter for x, which still had 5 of the time
+		final HeavyHitters second = new HeavyHitters(2);
+		second.add("x", 5);
+		second.add("p", 6);
+		second.add("q", 6);
+
+		first.merge(second);
+		final HeavyHitters.Entry x = first.top(1).get(0);
+		assertEquals("x", x.getKey());
+		assertTrue(x.getTotal() >= 105);
+		assertTrue(x.getTotal() - x.getError() <= 105);
+	}
+}
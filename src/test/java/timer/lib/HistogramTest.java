@@ -0,0 +1,127 @@
+package timer.lib;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class HistogramTest {
+	private static final double[] FRACTIONS = { 0.0, 0.01, 0.25, 0.5, 0.9, 0.99, 0.999, 1.0 };
+
+	// The value that the fraction of the sorted values are at or below
+	private static long percentile(long[] sorted, double fraction) {
+		return sorted[(int) Math.max(0, Math.ceil(fraction * sorted.length) - 1)];
+	}
+
+	private static void assertWithinBound(long[] values, Histogram histogram) {
+		final long[] sorted = values.clone();
+		Arrays.sort(sorted);
+		for (double fraction : FRACTIONS) {
+			final long expected = percentile(sorted, fraction), actual = histogram.percentile(fraction);
+			assertTrue(fraction + ": " + actual + " below " + expected, actual >= expected);
+			assertTrue(fraction + ": " + actual + " too far above " + expected, actual - expected <= expected / 8);
+		}
+	}
+
+	@Test
+	public void hasNothingWhenEmpty() {
+		final Histogram histogram = new Histogram();
+		assertEquals(0l, histogram.getCount());
+		assertEquals(0l, histogram.getMean());
+		assertEquals(0l, histogram.percentile(0.5));
+	}
+
+	@Test
+	public void keepsSmallValuesExact() {
+		final Histogram histogram = new Histogram();
+		for (long value = 0; value < 8; value++) {
+			histogram.add(value);
+		}
+
+		assertEquals(3l, histogram.percentile(0.5));
+		assertEquals(0l, histogram.percentile(0.0));
+		assertEquals(6l, histogram.percentile(0.8));
+		assertEquals(7l, histogram.percentile(1.0));
+	}
+
+	@Test
+	public void staysWithinAnEighthOfPercentiles() {
+		final Random random = new Random(19);
+		final long[] values = new long[100000];
+		final Histogram histogram = new Histogram();
+		for (int i = 0; i < values.length; i++) {
+			// Spread over many powers of two, as the lengths of intervals are
+			values[i] = (long) Math.exp(random.nextDouble() * 20);
+			histogram.add(values[i]);
+		}
+
+		assertEquals(values.length, histogram.getCount());
+		assertWithinBound(values, histogram);
+		assertEquals(Arrays.stream(values).min().getAsLong(), histogram.getMin());
+		assertEquals(Arrays.stream(values).max().getAsLong(), histogram.percentile(1.0));
+		assertEquals(Arrays.stream(values).sum() / values.length, histogram.getMean());
+	}
+
+	@Test
+	public void keepsPercentilesWithinValues() {
+		final Histogram histogram = new Histogram();
+		histogram.add(1000);
+		histogram.add(1001);
+
+		// The bucket goes on to 1023, but nothing that large was added
+		assertEquals(1001l, histogram.percentile(0.99));
+		assertEquals(1001l, histogram.percentile(0.0));
+
+		histogram.add(10);
+		assertEquals(10l, histogram.percentile(0.0));
+	}
+
+	@Test
+	public void countsNegativeValuesAsZero() {
+		final Histogram histogram = new Histogram();
+		histogram.add(-5);
+		histogram.add(10);
+
+		assertEquals(0l, histogram.getMin());
+		assertEquals(0l, histogram.percentile(0.5));
+		assertEquals(5l, histogram.getMean());
+	}
+
+	@Test
+	public void holdsLargestValues() {
+		final Histogram histogram = new Histogram();
+		histogram.add(Long.MAX_VALUE);
+		histogram.add(Long.MAX_VALUE / 3);
+
+		assertEquals(Long.MAX_VALUE, histogram.percentile(1.0));
+		assertWithinBound(new long[] { Long.MAX_VALUE, Long.MAX_VALUE / 3 }, histogram);
+	}
+
+	@Test
+	public void mergesAsIfAddedTogether() {
+		final Random random = new Random(20);
+		final Histogram all = new Histogram(), first = new Histogram(), second = new Histogram();
+		for (int i = 0; i < 10000; i++) {
+			final long value = random.nextInt(1 << 20);
+			all.add(value);
+			(i % 3 == 0 ? first : second).add(value);
+		}
+
+		final Histogram merged = first.copy();
+		merged.merge(second);
+		for (double fraction : FRACTIONS) {
+			assertEquals(all.percentile(fraction), merged.percentile(fraction));
+		}
+
+		assertEquals(all.getCount(), merged.getCount());
+		assertEquals(all.getMean(), merged.getMean());
+		assertEquals(all.getMax(), merged.getMax());
+
+		// The copy is left as it was
+		assertEquals(first.getCount() + second.getCount(), merged.getCount());
+		assertEquals(3334l, first.getCount());
+	}
+}
@@ -0,0 +1,148 @@
+package timer.report;
+
+import static org.junit.Assert.assertEquals;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import timer.TimerGroup;
+import timer.TimerLogRecord;
+
+public class QueryAggregatorTest {
+	private static final String DATE_FORMAT = "yyyy-MM-dd HH:mm";
+
+	private final TimerLogRecord record = new TimerLogRecord();
+
+	// An hour on the task from the anchor, given in the local time zone
+	private void add(QueryAggregator aggregator, String anchor, String task) throws Exception {
+		final long time = new SimpleDateFormat(DATE_FORMAT).parse(anchor).getTime();
+		record.set(time, time, time + 3600 * 1000, task);
+		aggregator.add(record);
+	}
+
+	private static List<String> groups(QueryAggregator aggregator) {
+		final SimpleDateFormat dateFormat = new SimpleDateFormat(DATE_FORMAT);
+		final List<String> result = new ArrayList<>();
+		for (TimerGroup group : aggregator.results()) {
+			result.add((group.getPeriod() != null ? dateFormat.format(group.getPeriod()) : "-") + " "
+					+ group.getProject() + " " + group.getTask() + " " + group.getTimeSpent());
+		}
+
+		return result;
+	}
+
+	@Test
+	public void groupsByWeekStartingMonday() throws Exception {
+		final QueryAggregator aggregator = new QueryAggregator(Arrays.asList(Dimension.WEEK));
+		add(aggregator, "2024-03-03 23:30", "JOB-1");
+		add(aggregator, "2024-03-04 00:00", "JOB-1");
+		add(aggregator, "2024-03-10 23:59", "JOB-2");
+		add(aggregator, "2024-03-11 09:00", "JOB-1");
+
+		// Back to a week already seen
+		add(aggregator, "2024-03-06 12:00", "JOB-3");
+
+		assertEquals(Arrays.asList("2024-02-26 00:00 null null 3600", "2024-03-04 00:00 null null 10800",
+				"2024-03-11 00:00 null null 3600"), groups(aggregator));
+	}
+
+	@Test
+	public void groupsWeeksAcrossYears() throws Exception {
+		final QueryAggregator aggregator = new QueryAggregator(Arrays.asList(Dimension.WEEK));
+		add(aggregator, "2024-12-31 10:00", "JOB-1");
+		add(aggregator, "2025-01-05 10:00", "JOB-1");
+		add(aggregator, "2025-01-06 10:00", "JOB-1");
+
+		assertEquals(Arrays.asList("2024-12-30 00:00 null null 7200", "2025-01-06 00:00 null null 3600"),
+				groups(aggregator));
+	}
+
+	@Test
+	public void groupsByMonthAndTask() throws Exception {
+		final QueryAggregator aggregator = new QueryAggregator(Arrays.asList(Dimension.MONTH, Dimension.TASK));
+		add(aggregator, "2024-01-31 23:59", "JOB-2");
+		add(aggregator, "2024-02-01 00:00", "JOB-1");
+		add(aggregator, "2024-02-29 22:00", "JOB-2");
+		add(aggregator, "2024-01-01 00:00", "JOB-1");
+		add(aggregator, "2024-02-10 10:00", "JOB-1");
+
+		assertEquals(Arrays.asList("2024-01-01 00:00 null JOB-1 3600", "2024-01-01 00:00 null JOB-2 3600",
+				"2024-02-01 00:00 null JOB-1 7200", "2024-02-01 00:00 null JOB-2 3600"), groups(aggregator));
+	}
+
+	@Test
+	public void ordersByDimensionsInTurn() throws Exception {
+		final QueryAggregator aggregator = new QueryAggregator(Arrays.asList(Dimension.TASK, Dimension.MONTH));
+		add(aggregator, "2024-02-01 10:00", "JOB-1");
+		add(aggregator, "2024-01-01 10:00", "JOB-2");
+		add(aggregator, "2024-01-01 11:00", "JOB-1");
+
+		assertEquals(Arrays.asList("2024-01-01 00:00 null JOB-1 3600", "2024-02-01 00:00 null JOB-1 3600",
+				"2024-01-01 00:00 null JOB-2 3600"), groups(aggregator));
+	}
+
+	@Test
+	public void mergesProjects() throws Exception {
+		final List<Dimension> dimensions = Arrays.asList(Dimension.MONTH, Dimension.PROJECT, Dimension.TASK);
+		final QueryAggregator all = new QueryAggregator(dimensions);
+		final QueryAggregator result = new QueryAggregator(dimensions);
+
+		final String[][] projects = { { "alpha", "2024-02-10 10:00", "2024-01-05 10:00" },
+				{ "beta", "2024-01-20 10:00", "2024-03-01 10:00" },
+				{ "alpha", "2024-01-06 10:00", "2024-03-02 10:00" } };
+		for (String[] project : projects) {
+			final QueryAggregator part = result.fork();
+			part.setProject(project[0]);
+			all.setProject(project[0]);
+			for (int i = 1; i < project.length; i++) {
+				add(part, project[i], "JOB-" + i);
+				add(all, project[i], "JOB-" + i);
+			}
+
+			result.merge(part);
+		}
+
+		assertEquals(groups(all), groups(result));
+		assertEquals(Arrays.asList("2024-01-01 00:00 alpha JOB-1 3600", "2024-01-01 00:00 alpha JOB-2 3600",
+				"2024-01-01 00:00 beta JOB-1 3600", "2024-02-01 00:00 alpha JOB-1 3600",
+				"2024-03-01 00:00 alpha JOB-2 3600", "2024-03-01 00:00 beta JOB-2 3600"), groups(result));
+	}
+
+	@Test
+	public void leavesOutDimensionsNotGroupedBy() throws Exception {
+		final QueryAggregator aggregator = new QueryAggregator(Arrays.asList(Dimension.PROJECT));
+		aggregator.setProject("alpha");
+		add(aggregator, "2024-01-01 10:00", "JOB-1");
+		add(aggregator, "2024-05-01 10:00", "JOB-2");
+
+		assertEquals(Arrays.asList("- alpha null 7200"), groups(aggregator));
+	}
+
+	@Test
+	public void keepsProjectsApartUpToLimit() throws Exception {
+		final QueryAggregator aggregator = new QueryAggregator(Arrays.asList(Dimension.PROJECT, Dimension.TASK));
+		for (int project = 0; project < 65536; project++) {
+			aggregator.setProject("project-" + project);
+		}
+		add(aggregator, "2024-01-01 10:00", "JOB-1");
+
+		assertEquals(Arrays.asList("- project-65535 JOB-1 3600"), groups(aggregator));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void rejectsTooManyProjects() {
+		final QueryAggregator aggregator = new QueryAggregator(Arrays.asList(Dimension.PROJECT));
+		for (int project = 0; project <= 65536; project++) {
+			aggregator.setProject("project-" + project);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsTwoPeriods() {
+		new QueryAggregator(Arrays.asList(Dimension.DAY, Dimension.MONTH));
+	}
+}